@@ -0,0 +1,191 @@
+package org.example.avisdevolss.bench;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.avisdevolss.service.CompanySearch;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Company substring search (CompanySearch) on a 1M-row flight table, in an embedded PostgreSQL
+ * migrated with the application's Flyway scripts.
+ * sequentialScan runs the query with index scans disabled; trigramIndex lets the planner use
+ * idx_flight_company_lower_trgm (V3__company_trigram_index.sql).
+ * ngramIndex is the in-process alternative the application does not use: an n-gram index over the distinct
+ * company names resolves the fragment to the matching names, then "company = ANY (?)" is looked up on a B-tree
+ * index created for the benchmark only. Its names go stale when another instance or an import adds a company,
+ * which the pg_trgm index avoids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompanySearchBenchmark {
+
+    private static final String SEARCH_SQL = "SELECT f.id FROM flight f WHERE "
+            + CompanySearch.SQL_CONDITION.replace(":companyPattern", "?");
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"100", "1000"})
+    public int companies;
+
+    @Param({"fra", "british air"})
+    public String fragment;
+
+    private EmbeddedPostgres postgres;
+    private Connection sequential;
+    private Connection indexed;
+    private PreparedStatement sequentialSearch;
+    private PreparedStatement indexedSearch;
+    private Connection ngram;
+    private PreparedStatement ngramSearch;
+    private NgramIndex ngramIndex;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder().start();
+        Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+
+        List<String> names = Fixtures.companies(companies);
+        sequential = postgres.getPostgresDatabase().getConnection();
+        try (PreparedStatement insert = sequential.prepareStatement(
+                "INSERT INTO flight (id, company, date, flight_number)"
+                        + " SELECT g, (?::text[])[1 + (g::bigint * 7919) % ?], now(), 'FL' || g FROM generate_series(1, ?) g")) {
+            insert.setArray(1, sequential.createArrayOf("text", names.toArray()));
+            insert.setInt(2, names.size());
+            insert.setInt(3, rows);
+            insert.executeUpdate();
+        }
+        try (Statement statement = sequential.createStatement()) {
+            statement.execute("ANALYZE flight");
+            statement.execute("SET enable_indexscan = off");
+            statement.execute("SET enable_bitmapscan = off");
+        }
+        sequentialSearch = sequential.prepareStatement(SEARCH_SQL);
+        sequentialSearch.setString(1, CompanySearch.pattern(fragment));
+
+        indexed = postgres.getPostgresDatabase().getConnection();
+        indexedSearch = indexed.prepareStatement(SEARCH_SQL);
+        indexedSearch.setString(1, CompanySearch.pattern(fragment));
+
+        ngram = postgres.getPostgresDatabase().getConnection();
+        try (Statement statement = ngram.createStatement()) {
+            statement.execute("CREATE INDEX idx_bench_flight_company ON flight (company)");
+            statement.execute("ANALYZE flight");
+        }
+        List<String> distinct = new ArrayList<>();
+        try (Statement statement = ngram.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT DISTINCT company FROM flight")) {
+            while (resultSet.next()) {
+                distinct.add(resultSet.getString(1));
+            }
+        }
+        ngramIndex = new NgramIndex(distinct);
+        ngramSearch = ngram.prepareStatement("SELECT f.id FROM flight f WHERE f.company = ANY (?)");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        sequential.close();
+        indexed.close();
+        ngram.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public int sequentialScan() throws SQLException {
+        return count(sequentialSearch);
+    }
+
+    @Benchmark
+    public int trigramIndex() throws SQLException {
+        return count(indexedSearch);
+    }
+
+    @Benchmark
+    public int ngramIndex() throws SQLException {
+        ngramSearch.setArray(1, ngram.createArrayOf("text", ngramIndex.matching(fragment).toArray()));
+        return count(ngramSearch);
+    }
+
+    private static int count(PreparedStatement search) throws SQLException {
+        int matches = 0;
+        try (ResultSet resultSet = search.executeQuery()) {
+            while (resultSet.next()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Trigrams of the lower-cased names, each mapped to the names that contain it
+     */
+    private static final class NgramIndex {
+        private static final int N = 3;
+
+        private final List<String> names;
+        private final Map<String, Set<String>> namesByGram = new HashMap<>();
+
+        private NgramIndex(List<String> names) {
+            this.names = names;
+            for (String name : names) {
+                String lower = name.toLowerCase(Locale.ROOT);
+                for (int i = 0; i + N <= lower.length(); i++) {
+                    namesByGram.computeIfAbsent(lower.substring(i, i + N), gram -> new HashSet<>()).add(name);
+                }
+            }
+        }
+
+        /**
+         * @return the names containing the fragment, ignoring case
+         */
+        private Set<String> matching(String fragment) {
+            String needle = fragment.toLowerCase(Locale.ROOT);
+            Set<String> candidates = null;
+            for (int i = 0; i + N <= needle.length(); i++) {
+                Set<String> withGram = namesByGram.getOrDefault(needle.substring(i, i + N), Set.of());
+                if (candidates == null || withGram.size() < candidates.size()) {
+                    candidates = withGram;
+                }
+            }
+            // Les trigrammes ne donnent que des candidats : la sous-chaîne est vérifiée sur chacun
+            Set<String> matching = new HashSet<>();
+            for (String name : candidates != null ? candidates : names) {
+                if (name.toLowerCase(Locale.ROOT).contains(needle)) {
+                    matching.add(name);
+                }
+            }
+            return matching;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.avisdevolss.bench;
+
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Response;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.entity.Role;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic data shared by the benchmarks
+ */
+final class Fixtures {
+
+    static final String[] COMPANY_WORDS = {
+            "Air", "France", "British", "Airways", "Iberia", "Lufthansa", "Royal", "Dutch", "Swiss", "Atlantic",
+            "Pacific", "Nordic", "Alpine", "Express", "Global", "Sky", "Jet", "Wings", "Transavia", "Ocean"
+    };
+
+    private Fixtures() {
+    }
+
+    static List<String> companies(int count) {
+        Random random = new Random(42);
+        List<String> companies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            companies.add(COMPANY_WORDS[random.nextInt(COMPANY_WORDS.length)] + " "
+                    + COMPANY_WORDS[random.nextInt(COMPANY_WORDS.length)] + " " + i);
+        }
+        return companies;
+    }
+
+    static List<Flight> flights(int count, List<String> companies) {
+        Random random = new Random(7);
+        long start = new Date().getTime();
+        List<Flight> flights = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Flight flight = new Flight();
+            flight.setId(i + 1);
+            flight.setFlightNumber("FL" + i);
+            flight.setCompany(companies.get(random.nextInt(companies.size())));
+            flight.setDate(new Date(start + random.nextInt(365) * 86_400_000L));
+            flights.add(flight);
+        }
+        return flights;
+    }
+
+    static Account account(int id) {
+        Account account = new Account();
+        account.setId(id);
+        account.setFirstName("First" + id);
+        account.setLastName("Last" + id);
+        account.setEmail("user" + id + "@avisdevol.com");
+        account.setRole(Role.USER);
+        return account;
+    }
+
+    static List<Review> reviews(int count, List<Flight> flights) {
+        Random random = new Random(11);
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Review review = new Review();
+            review.setId(i + 1);
+            review.setContent("Avis numéro " + i + " : vol agréable, équipage attentionné, repas correct.");
+            review.setNotation(1 + random.nextInt(5));
+            review.setStatus(ReviewStatus.values()[random.nextInt(ReviewStatus.values().length)]);
+            review.setAccount(account(1 + random.nextInt(1000)));
+            review.setFlight(flights.get(random.nextInt(flights.size())));
+            reviews.add(review);
+        }
+        return reviews;
+    }
+
+    static List<Response> responses(List<Review> reviews, int perReview) {
+        List<Response> responses = new ArrayList<>(reviews.size() * perReview);
+        int id = 1;
+        for (Review review : reviews) {
+            for (int i = 0; i < perReview; i++) {
+                Response response = new Response();
+                response.setId(id++);
+                response.setContent("Merci pour votre retour");
+                response.setReview(review);
+                response.setUser(account(1));
+                responses.add(response);
+            }
+        }
+        return responses;
+    }
+}
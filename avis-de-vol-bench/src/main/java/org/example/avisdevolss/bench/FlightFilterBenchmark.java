@@ -0,0 +1,84 @@
+package org.example.avisdevolss.bench;
+
+import org.example.avisdevolss.entity.Flight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The in-memory filtering FlightService.findFlights used to do on the whole flight table,
+ * kept as a reference point: the service now sends these filters to the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlightFilterBenchmark {
+
+    @Param({"10000", "100000"})
+    public int flights;
+
+    private List<Flight> data;
+    private Date startDate;
+    private Date endDate;
+
+    @Setup
+    public void setUp() {
+        data = Fixtures.flights(flights, Fixtures.companies(1000));
+        startDate = new Date(new Date().getTime() + 30 * 86_400_000L);
+        endDate = new Date(new Date().getTime() + 60 * 86_400_000L);
+    }
+
+    @Benchmark
+    public List<Flight> legacyCompanyAndDateFilter() {
+        return legacyFindFlights(data, "france", startDate, endDate);
+    }
+
+    @Benchmark
+    public List<Flight> legacyCompanyFilter() {
+        return legacyFindFlights(data, "france", null, null);
+    }
+
+    // Copie de l'ancienne implémentation de FlightService.findFlights
+    private static List<Flight> legacyFindFlights(List<Flight> flights, String company, Date startDate, Date endDate) {
+        if (company != null && !company.trim().isEmpty()) {
+            flights = flights.stream()
+                    .filter(flight -> flight.getCompany().toLowerCase().contains(company.toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+
+        if (startDate != null && endDate != null) {
+            flights = flights.stream()
+                    .filter(flight -> {
+                        Date flightDate = flight.getDate();
+                        return !flightDate.before(startDate) && !flightDate.after(endDate);
+                    })
+                    .collect(Collectors.toList());
+        } else if (startDate != null) {
+            flights = flights.stream()
+                    .filter(flight -> !flight.getDate().before(startDate))
+                    .collect(Collectors.toList());
+        } else if (endDate != null) {
+            flights = flights.stream()
+                    .filter(flight -> !flight.getDate().after(endDate))
+                    .collect(Collectors.toList());
+        }
+
+        return flights;
+    }
+}
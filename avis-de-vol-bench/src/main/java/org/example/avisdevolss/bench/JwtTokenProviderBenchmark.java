@@ -0,0 +1,76 @@
+package org.example.avisdevolss.bench;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of JWT handling in JwtAuthenticationFilter.
+ * legacyTripleParse reproduces the filter before the parse-once change (validateToken, then
+ * getEmailFromToken and getUserIdFromToken, each building a parser and checking the HMAC).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "myVerySecretKeyForJWTTokenGeneration123456789012345678901234567890";
+
+    private JwtTokenProvider provider;
+    private SecretKey key;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider(SECRET, 86_400_000, 10_000, new SimpleMeterRegistry());
+        key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        parser = Jwts.parser().verifyWith(key).build();
+        token = provider.generateToken("user@avisdevol.com", 42, Role.USER);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return provider.generateToken("user@avisdevol.com", 42, Role.USER);
+    }
+
+    @Benchmark
+    public void legacyTripleParse(Blackhole blackhole) {
+        Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
+        Claims forEmail = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        blackhole.consume(forEmail.getSubject());
+        Claims forUserId = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        blackhole.consume(forUserId.get("userId", Integer.class));
+    }
+
+    @Benchmark
+    public Claims singleParseReusedParser() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims parseClaimsCached() {
+        return provider.parseClaims(token).orElseThrow();
+    }
+}
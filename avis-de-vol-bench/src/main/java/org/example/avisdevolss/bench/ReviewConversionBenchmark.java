@@ -0,0 +1,59 @@
+package org.example.avisdevolss.bench;
+
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.example.avisdevolss.dto.ReviewPublicDto;
+import org.example.avisdevolss.dto.ReviewResponseDto;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.service.ReviewService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReviewService.convertToResponseDto / convertToPublicDto over a result list, including the
+ * batched response lookup and grouping (the repositories answer from memory).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReviewConversionBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int reviews;
+
+    private ReviewService reviewService;
+    private ReviewFilterDto filter;
+
+    @Setup
+    public void setUp() {
+        List<Flight> flights = Fixtures.flights(1000, Fixtures.companies(100));
+        List<Review> data = Fixtures.reviews(reviews, flights);
+        reviewService = Services.reviewService(flights, Fixtures.responses(data, 2), spec -> data);
+        filter = new ReviewFilterDto();
+    }
+
+    @Benchmark
+    public List<ReviewResponseDto> convertToResponseDto() {
+        return reviewService.findReviews(filter);
+    }
+
+    @Benchmark
+    public List<ReviewPublicDto> convertToPublicDto() {
+        return reviewService.findReviewsForPublic(filter);
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.avisdevolss.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.example.avisdevolss.dto.ReviewPublicDto;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the public review listing body
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReviewSerializationBenchmark {
+
+    @Param({"1000", "10000"})
+    public int reviews;
+
+    private ObjectMapper objectMapper;
+    private List<ReviewPublicDto> dtos;
+
+    @Setup
+    public void setUp() {
+        List<Flight> flights = Fixtures.flights(1000, Fixtures.companies(100));
+        List<Review> data = Fixtures.reviews(reviews, flights);
+        dtos = Services.reviewService(flights, Fixtures.responses(data, 2), spec -> data)
+                .findReviewsForPublic(new ReviewFilterDto());
+        objectMapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public byte[] serializePublicReviews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.avisdevolss.bench;
+
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Response;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.service.ReviewService;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a ReviewFilterDto into JPA criteria (ReviewService.createSpecification), evaluated
+ * against Hibernate's real CriteriaBuilder on an H2 metamodel.
+ * No query is executed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReviewSpecificationBenchmark {
+
+    private SessionFactory sessionFactory;
+    private ReviewService reviewService;
+    private ReviewFilterDto emptyFilter;
+    private ReviewFilterDto fullFilter;
+
+    @Setup
+    public void setUp() {
+        Configuration configuration = new Configuration()
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        // Même stratégie de nommage que Spring Boot (flight_number, account_id...)
+        configuration.setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy());
+        sessionFactory = configuration
+                .addAnnotatedClass(Account.class)
+                .addAnnotatedClass(Flight.class)
+                .addAnnotatedClass(Review.class)
+                .addAnnotatedClass(Response.class)
+                .buildSessionFactory();
+        CriteriaBuilder criteriaBuilder = sessionFactory.getCriteriaBuilder();
+
+        List<Flight> flights = Fixtures.flights(1000, Fixtures.companies(1000));
+        reviewService = Services.reviewService(flights, List.of(), spec -> {
+            CriteriaQuery<Review> query = criteriaBuilder.createQuery(Review.class);
+            Root<Review> root = query.from(Review.class);
+            query.where(spec.toPredicate(root, query, criteriaBuilder));
+            return List.of();
+        });
+
+        emptyFilter = new ReviewFilterDto();
+        fullFilter = new ReviewFilterDto();
+        fullFilter.setCompany("france");
+        fullFilter.setAccountId(42);
+        fullFilter.setNotation(4);
+        fullFilter.setStatus(ReviewStatus.PUBLIE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Object emptyFilter() {
+        return reviewService.findReviews(emptyFilter);
+    }
+
+    @Benchmark
+    public Object allFilters() {
+        return reviewService.findReviews(fullFilter);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.avisdevolss.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.avisdevolss.config.ReadYourWrites;
+import org.example.avisdevolss.config.ReplicaLagMonitor;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Response;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.repository.FlightRepository;
+import org.example.avisdevolss.repository.ResponseRepository;
+import org.example.avisdevolss.repository.ReviewRepository;
+import org.example.avisdevolss.service.RatingAggregateService;
+import org.example.avisdevolss.service.ResourceVersions;
+import org.example.avisdevolss.service.ResponseService;
+import org.example.avisdevolss.service.ReviewEventFeed;
+import org.example.avisdevolss.service.ReviewService;
+import org.example.avisdevolss.service.StatisticsService;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Wires the real services on top of repository stubs
+ */
+final class Services {
+
+    private Services() {
+    }
+
+    /**
+     * @param searchHandler what ReviewRepository.findAll(spec) does with the specification built by the service
+     */
+    @SuppressWarnings("unchecked")
+    static ReviewService reviewService(List<Flight> flights, List<Response> responses,
+                                       Function<Specification<Review>, List<Review>> searchHandler) {
+        List<String> companies = flights.stream().map(Flight::getCompany).distinct().sorted().collect(Collectors.toList());
+
+        Map<String, Function<Object[], Object>> flightAnswers = new HashMap<>();
+        flightAnswers.put("findAllCompanies/0", args -> companies);
+        FlightRepository flightRepository = Stubs.repository(FlightRepository.class, flightAnswers);
+
+        Map<String, Function<Object[], Object>> reviewAnswers = new HashMap<>();
+        reviewAnswers.put("findAll/1", args -> searchHandler.apply((Specification<Review>) args[0]));
+        ReviewRepository reviewRepository = Stubs.repository(ReviewRepository.class, reviewAnswers);
+
+        Map<Integer, List<Response>> responsesByReview = responses.stream()
+                .collect(Collectors.groupingBy(response -> response.getReview().getId()));
+        Map<String, Function<Object[], Object>> responseAnswers = new HashMap<>();
+        responseAnswers.put("findByReviewIdIn/1", args -> ((Collection<Integer>) args[0]).stream()
+                .flatMap(id -> responsesByReview.getOrDefault(id, List.of()).stream())
+                .collect(Collectors.toList()));
+        responseAnswers.put("findByReviewId/1", args -> responsesByReview.getOrDefault((Integer) args[0], List.of()));
+        ResponseRepository responseRepository = Stubs.repository(ResponseRepository.class, responseAnswers);
+
+        AccountRepository accountRepository = Stubs.repository(AccountRepository.class, new HashMap<>());
+
+        // Jamais appelé par les benchmarks : aucune base derrière
+        ResourceVersions resourceVersions = new ResourceVersions(new JdbcTemplate(),
+                new ReadYourWrites(new StaticListableBeanFactory().getBeanProvider(ReplicaLagMonitor.class)), event -> { });
+        ReviewEventFeed reviewEventFeed = new ReviewEventFeed(new ObjectMapper(), new SimpleMeterRegistry(), new JdbcTemplate(),
+                16, 1, 1, 1000, 1, 1000, 3600000);
+        ResponseService responseService = new ResponseService(responseRepository, reviewRepository, accountRepository,
+                new ConcurrentMapCacheManager(), resourceVersions, reviewEventFeed);
+        return new ReviewService(reviewRepository, accountRepository, flightRepository, responseService,
+                new RatingAggregateService(reviewRepository),
+                new StatisticsService(accountRepository, flightRepository, reviewRepository), resourceVersions,
+                reviewEventFeed);
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.avisdevolss.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.example.avisdevolss.exception.AsyncReadRejectedException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the heavy read endpoints on a bounded pool of their own instead of the Tomcat threads.
+ * A slow query then holds one of these threads, and the cheap endpoints keep their workers.
+ * Each endpoint has its own timeout (async.read.* properties); on timeout, or when the queue is full,
+ * the response is 503 with Retry-After.
+ * The task runs with the context of the request thread: an EntityManager open for its whole duration
+ * (as open-session-in-view), the security context, the user whose own writes it must see (ReadYourWrites)
+ * and the SQL counters.
+ * The request itself is not handed over: Tomcat recycles it once a timed-out response is sent.
+ * Once the response is sent, the statements the task still runs are refused (see ExpiredReadGuard).
+ */
+@Component
+@Slf4j
+public class AsyncReadExecutor implements DisposableBean {
+
+    // Réponse attendue de la tâche en cours sur ce thread
+    private static final ThreadLocal<DeferredResult<?>> CURRENT = new ThreadLocal<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final SqlStatementCounter sqlStatementCounter;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final ThreadPoolExecutor executor;
+    private final long defaultTimeoutMs;
+    private final Map<String, Long> endpointTimeouts = new HashMap<>();
+
+    public AsyncReadExecutor(EntityManagerFactory entityManagerFactory,
+                             SqlStatementCounter sqlStatementCounter,
+                             MeterRegistry meterRegistry,
+                             @Value("${async.read.enabled:true}") boolean enabled,
+                             @Value("${async.read.pool-size:8}") int poolSize,
+                             @Value("${async.read.queue-capacity:200}") int queueCapacity,
+                             @Value("${async.read.timeout-ms:10000}") long defaultTimeoutMs,
+                             @Value("${async.read.timeouts:}") List<String> endpointTimeouts) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        for (String entry : endpointTimeouts) {
+            // "reviews=5000"
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid async.read.timeouts entry: " + entry);
+            }
+            this.endpointTimeouts.put(entry.substring(0, separator).trim(),
+                    Long.parseLong(entry.substring(separator + 1).trim()));
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "async-read-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("async.read.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("async.read.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a read on the pool
+     * @param endpoint name of the endpoint, for its timeout and metrics
+     * @param task the read, building the response
+     * @return the response to come, for the controller to return
+     */
+    public <T> DeferredResult<T> submit(String endpoint, Supplier<T> task) {
+        DeferredResult<T> result = new DeferredResult<>(endpointTimeouts.getOrDefault(endpoint, defaultTimeoutMs));
+        if (!enabled) {
+            result.setResult(task.get());
+            return result;
+        }
+
+        Timer timer = Timer.builder("async.read.duration")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        long submittedAt = System.nanoTime();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        Integer userId = ReadYourWrites.currentUserId();
+        SqlStatementCounter.Counts sqlCounts = sqlStatementCounter.current();
+
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                // Expirée pendant l'attente dans la file : la réponse 503 est déjà partie
+                if (result.isSetOrExpired()) {
+                    return;
+                }
+                SecurityContextHolder.setContext(securityContext);
+                ReadYourWrites.bindUserId(userId);
+                CURRENT.set(result);
+                if (sqlCounts != null) {
+                    sqlStatementCounter.attach(sqlCounts);
+                }
+                EntityManager entityManager = entityManagerFactory.createEntityManager();
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+                try {
+                    result.setResult(task.get());
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                } finally {
+                    TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+                    EntityManagerFactoryUtils.closeEntityManager(entityManager);
+                    sqlStatementCounter.end();
+                    CURRENT.remove();
+                    ReadYourWrites.unbindUserId();
+                    SecurityContextHolder.clearContext();
+                    timer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected(endpoint, "queue_full");
+            log.warn("Async read pool saturated, rejecting {}", endpoint);
+            result.setErrorResult(new AsyncReadRejectedException("Read capacity exceeded, please retry"));
+            return result;
+        }
+
+        result.onTimeout(() -> {
+            // Retirée de la file si elle n'a pas commencé ; sinon le thread finit sa requête, sans effet
+            future.cancel(false);
+            rejected(endpoint, "timeout");
+            log.warn("Async read {} timed out", endpoint);
+            result.setErrorResult(new AsyncReadRejectedException("Read timed out, please retry"));
+        });
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Refuses the statements of an asynchronous read whose response was already sent (timeout),
+     * checked before each statement and again once it returns, so an abandoned read stops at its next
+     * database step instead of running to the end on the pool
+     */
+    public static class ExpiredReadGuard implements QueryExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            checkNotExpired();
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            checkNotExpired();
+        }
+
+        private static void checkNotExpired() {
+            DeferredResult<?> result = CURRENT.get();
+            if (result != null && result.isSetOrExpired()) {
+                throw new AsyncReadRejectedException("Read abandoned, its response was already sent");
+            }
+        }
+    }
+
+    private void rejected(String endpoint, String reason) {
+        Counter.builder("async.read.rejected")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+}
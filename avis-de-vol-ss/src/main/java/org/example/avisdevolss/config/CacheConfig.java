@@ -0,0 +1,14 @@
+package org.example.avisdevolss.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-memory caches, backed by Caffeine (see spring.cache.* in application.properties)
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String REVIEWS_CACHE = "reviews";
+}
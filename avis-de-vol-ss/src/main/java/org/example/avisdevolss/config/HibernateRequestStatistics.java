@@ -0,0 +1,31 @@
+package org.example.avisdevolss.config;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+/**
+ * Counts the entities loaded by Hibernate into the SQL counts of the current thread (SqlStatementCounter).
+ * Registered as interceptor of the session factory (see MetricsConfig); the statements themselves are
+ * counted by the datasource proxy, which also sees JdbcTemplate and plain JDBC.
+ */
+@Component
+public class HibernateRequestStatistics extends EmptyInterceptor {
+
+    private final transient SqlStatementCounter counter;
+
+    public HibernateRequestStatistics(SqlStatementCounter counter) {
+        this.counter = counter;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        SqlStatementCounter.Counts counts = counter.current();
+        if (counts != null) {
+            counts.entityLoaded();
+        }
+        return false;
+    }
+}
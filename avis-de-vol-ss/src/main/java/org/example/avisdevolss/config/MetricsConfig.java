@@ -0,0 +1,22 @@
+package org.example.avisdevolss.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hooks the per-request entity load counter into Hibernate (statements are counted by SqlStatementCounter).
+ * The other metrics (HTTP, Hikari, Hibernate statistics, JVM) are bound by Spring Boot
+ * and exposed on /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateRequestStatisticsCustomizer(HibernateRequestStatistics statistics) {
+        return properties -> {
+            properties.put(AvailableSettings.INTERCEPTOR, statistics);
+        };
+    }
+}
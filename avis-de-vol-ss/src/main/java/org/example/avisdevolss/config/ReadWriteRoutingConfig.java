@@ -0,0 +1,96 @@
+package org.example.avisdevolss.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write split, enabled by datasource.replica.urls.
+ * The application DataSource routes read-only transactions to the replicas and the rest
+ * to the primary (spring.datasource.*). Without replicas, Spring Boot's single DataSource is used.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replica.urls")
+public class ReadWriteRoutingConfig implements DisposableBean {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private HikariDataSource primary;
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(DataSourceProperties properties,
+                                               @Value("${datasource.replica.urls}") String urls,
+                                               @Value("${datasource.replica.username:${spring.datasource.username:}}") String username,
+                                               @Value("${datasource.replica.password:${spring.datasource.password:}}") String password,
+                                               @Value("${datasource.replica.max-lag-ms:1000}") long maxLagMs) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : StringUtils.commaDelimitedListToStringArray(urls)) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setReadOnly(true);
+            pools.add(replica);
+            replicas.add(replica);
+        }
+        return new ReplicaLagMonitor(primary(properties), replicas, maxLagMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, ReplicaLagMonitor replicaLagMonitor,
+                                 ReadYourWrites readYourWrites) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary(properties), replicaLagMonitor, readYourWrites);
+        routing.afterPropertiesSet();
+        // La connexion physique n'est prise qu'à la première requête, une fois la transaction (readOnly ou non) commencée
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // Partagé par le routage et la mesure du retard, qui lit la position du WAL sur le primaire
+    private synchronized HikariDataSource primary(DataSourceProperties properties) {
+        if (primary == null) {
+            primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            primary.setPoolName("primary");
+            pools.add(primary);
+        }
+        return primary;
+    }
+
+    /**
+     * Connections acquired per target, bound apart from the DataSource: the MeterRegistry depends on it
+     */
+    @Bean
+    public MeterBinder routedConnectionsMetrics(DataSource dataSource) throws SQLException {
+        ReadWriteRoutingDataSource routing = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        return registry -> {
+            FunctionCounter.builder("datasource.routed.connections", routing, ReadWriteRoutingDataSource::getPrimaryConnections)
+                    .tag("target", "primary")
+                    .description("Connections acquired, by target database")
+                    .register(registry);
+            FunctionCounter.builder("datasource.routed.connections", routing, ReadWriteRoutingDataSource::getReplicaConnections)
+                    .tag("target", "replica")
+                    .description("Connections acquired, by target database")
+                    .register(registry);
+        };
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
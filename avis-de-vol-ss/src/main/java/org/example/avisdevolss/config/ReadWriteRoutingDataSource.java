@@ -0,0 +1,96 @@
+package org.example.avisdevolss.config;
+
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions to a read replica, round robin, and everything else to the primary.
+ * Replicas lagging more than the maximum are skipped, and so is any replica that has not yet
+ * replayed the last write of the current user (see ReadYourWrites); when none is left, the read goes to the primary.
+ * Must be wrapped in a LazyConnectionDataSourceProxy: the read-only flag of the transaction
+ * is only known once it has begun.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica-";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWrites readYourWrites;
+    private final int replicaCount;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaLagMonitor lagMonitor, ReadYourWrites readYourWrites) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWrites = readYourWrites;
+        List<DataSource> replicas = lagMonitor.getReplicas();
+        this.replicaCount = replicas.size();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaCount; i++) {
+            targets.put(REPLICA + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    public long getPrimaryConnections() {
+        return primaryConnections.sum();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.sum();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                // Position du commit, pour les lectures de son auteur
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        readYourWrites.committed();
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        readYourWrites.completed();
+                    }
+
+                    // Avant les autres synchronisations : ResourceVersions publie ses versions à la position du commit
+                    @Override
+                    public int getOrder() {
+                        return Ordered.HIGHEST_PRECEDENCE;
+                    }
+                });
+            }
+            primaryConnections.increment();
+            return PRIMARY;
+        }
+
+        long requiredLsn = readYourWrites.requiredLsn();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicaCount; i++) {
+            int replica = Math.floorMod(start + i, replicaCount);
+            if (lagMonitor.isUsable(replica, requiredLsn)) {
+                replicaConnections.increment();
+                return REPLICA + replica;
+            }
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.avisdevolss.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary WAL position of the last committed write of each user.
+ * A read-only transaction of that user is only sent to a replica that has replayed this position, so a
+ * user always sees their own reviews and responses (see ReadWriteRoutingDataSource); the reads of other
+ * users are only held back by the maximum replica lag. Positions are kept by the instance that served
+ * the write. Without read replicas, every read goes to the primary and nothing is tracked.
+ */
+@Slf4j
+@Component
+public class ReadYourWrites {
+
+    // Position que rien ne dépasse : lue sur le primaire
+    private static final long PRIMARY_ONLY = Long.MAX_VALUE;
+
+    // Utilisateur d'une lecture asynchrone, lu sur le thread de la requête (voir AsyncReadExecutor)
+    private static final ThreadLocal<Integer> TASK_USER = new ThreadLocal<>();
+    // Position du commit en cours de publication (voir ReadWriteRoutingDataSource)
+    private static final ThreadLocal<Long> COMMIT_LSN = new ThreadLocal<>();
+
+    private final ObjectProvider<ReplicaLagMonitor> lagMonitor;
+    // Au-delà d'une minute, tout réplica dans le retard maximal a rejoué l'écriture
+    private final Cache<Integer, Long> lastWrites = Caffeine.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .maximumSize(100_000)
+            .build();
+
+    public ReadYourWrites(ObjectProvider<ReplicaLagMonitor> lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    /**
+     * Record a write committed by each of the accounts, at the position of the commit being published
+     * on this thread, or else at the primary's current position
+     */
+    public void recordWrite(Collection<Integer> accountIds) {
+        if (accountIds.isEmpty() || lagMonitor.getIfAvailable() == null) {
+            return;
+        }
+        long lsn = commitLsn();
+        for (Integer accountId : accountIds) {
+            if (accountId != null) {
+                lastWrites.asMap().merge(accountId, lsn, Math::max);
+            }
+        }
+    }
+
+    /**
+     * @return the position the replica must have replayed for a read of the current user, 0 if none
+     */
+    public long requiredLsn() {
+        Integer userId = currentUserId();
+        Long lsn = userId != null ? lastWrites.getIfPresent(userId) : null;
+        return lsn != null ? lsn : 0L;
+    }
+
+    /**
+     * @return the primary position of the commit being published on this thread, or else the current one;
+     * 0 without read replicas, where positions are not compared
+     */
+    public long commitLsn() {
+        Long committed = COMMIT_LSN.get();
+        if (committed != null) {
+            return committed;
+        }
+        ReplicaLagMonitor monitor = lagMonitor.getIfAvailable();
+        if (monitor == null) {
+            return 0L;
+        }
+        try {
+            return monitor.primaryLsn();
+        } catch (SQLException e) {
+            // Position inconnue : les lectures qui en dépendent resteront sur le primaire
+            log.warn("Could not read the primary's WAL position: {}", e.getMessage());
+            return PRIMARY_ONLY;
+        }
+    }
+
+    /**
+     * @return a primary position every read-only transaction started from now on sees, replica or not
+     */
+    public long replicatedLsn() {
+        ReplicaLagMonitor monitor = lagMonitor.getIfAvailable();
+        return monitor != null ? monitor.replicatedLsn() : PRIMARY_ONLY;
+    }
+
+    /**
+     * @return true if read-only transactions may go to read replicas
+     */
+    public boolean hasReplicas() {
+        return lagMonitor.getIfAvailable() != null;
+    }
+
+    /**
+     * @return the authenticated user of the current HTTP request (set by JwtAuthenticationFilter), or null
+     */
+    public static Integer currentUserId() {
+        Integer taskUser = TASK_USER.get();
+        if (taskUser != null) {
+            return taskUser;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object userId = attributes.getAttribute("userId", RequestAttributes.SCOPE_REQUEST);
+        return userId instanceof Integer ? (Integer) userId : null;
+    }
+
+    /**
+     * Act on behalf of the given user on the current thread, which serves no HTTP request
+     */
+    static void bindUserId(Integer userId) {
+        TASK_USER.set(userId);
+    }
+
+    static void unbindUserId() {
+        TASK_USER.remove();
+    }
+
+    /**
+     * A write transaction of the current thread has committed: its position is read once, kept for the
+     * synchronizations that follow (ResourceVersions) and recorded for the current user
+     */
+    void committed() {
+        // Une transaction qui a pris plusieurs connexions a enregistré plusieurs synchronisations
+        if (COMMIT_LSN.get() != null) {
+            return;
+        }
+        COMMIT_LSN.set(commitLsn());
+        recordWrite(Collections.singletonList(currentUserId()));
+    }
+
+    void completed() {
+        COMMIT_LSN.remove();
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.avisdevolss.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tracks how far each read replica has replayed the primary's WAL.
+ * Each check reads the primary's current WAL position, then each replica's replay position; the lag of
+ * a replica is the age of the newest primary position it has replayed.
+ * A replica is usable while it lagged no more than the maximum at its last check and has replayed both the
+ * position the caller needs (its own last write, see ReadYourWrites) and the replicated position:
+ * until the first check, and whenever it is unreachable, reads go to the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // Position d'insertion : un commit asynchrone y figure avant d'être écrit sur disque
+    private static final String PRIMARY_LSN_SQL = "SELECT (pg_current_wal_insert_lsn() - '0/0'::pg_lsn)::bigint";
+    // Position rejouée ; NULL tant que rien n'est rejoué
+    private static final String REPLAY_LSN_SQL =
+            "SELECT pg_is_in_recovery(), (pg_last_wal_replay_lsn() - '0/0'::pg_lsn)::bigint";
+    // Positions du primaire gardées : un réplica plus en retard n'est de toute façon plus utilisable
+    private static final int READINGS = 16;
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long maxLagNanos;
+    private final Deque<Reading> readings = new ArrayDeque<>();
+    private final AtomicReferenceArray<Replay> replays;
+    private final AtomicLong replicated = new AtomicLong();
+
+    public ReplicaLagMonitor(DataSource primary, List<DataSource> replicas, long maxLagMs) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMs);
+        this.replays = new AtomicReferenceArray<>(replicas.size());
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @param replica index of the replica
+     * @param requiredLsn primary position the replica must have replayed (see ReadYourWrites)
+     * @return true if read-only transactions may use the replica
+     */
+    public boolean isUsable(int replica, long requiredLsn) {
+        Replay replay = replays.get(replica);
+        return replay != null && replay.lagNanos <= maxLagNanos
+                && replay.lsn >= requiredLsn && replay.lsn >= replicated.get();
+    }
+
+    /**
+     * @return a primary position every read-only transaction sees, wherever it is routed; it never goes back
+     */
+    public long replicatedLsn() {
+        return replicated.get();
+    }
+
+    /**
+     * @return the primary's current WAL position, which covers every transaction committed so far
+     */
+    public long primaryLsn() throws SQLException {
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(PRIMARY_LSN_SQL)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}",
+               initialDelayString = "${datasource.replica.lag-check-initial-delay-ms:0}")
+    public synchronized void check() {
+        // Instant pris avant la lecture : tout commit terminé avant lui a une position inférieure
+        long readAt = System.nanoTime();
+        long primaryLsn;
+        try {
+            primaryLsn = primaryLsn();
+        } catch (SQLException e) {
+            log.warn("Could not read the primary's WAL position: {}", e.getMessage());
+            return;
+        }
+        readings.addFirst(new Reading(readAt, primaryLsn));
+        if (readings.size() > READINGS) {
+            readings.removeLast();
+        }
+
+        // Sans réplica utilisable, tout est lu sur le primaire : la position lue est acquise
+        long usableMin = primaryLsn;
+        for (int i = 0; i < replicas.size(); i++) {
+            try (Connection connection = replicas.get(i).getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(REPLAY_LSN_SQL)) {
+                resultSet.next();
+                long checkedAt = System.nanoTime();
+                Long replayLsn;
+                if (!resultSet.getBoolean(1)) {
+                    // Instance autonome, hors réplication : rien à rejouer
+                    replayLsn = primaryLsn;
+                } else {
+                    replayLsn = resultSet.getLong(2);
+                    if (resultSet.wasNull()) {
+                        replayLsn = null;
+                    }
+                }
+                Replay previous = replays.get(i);
+                if (replayLsn == null || previous != null && previous.lsn > replayLsn) {
+                    replayLsn = previous != null ? previous.lsn : null;
+                }
+                Long caughtUpTo = replayLsn != null ? caughtUpTo(replayLsn) : null;
+                Replay replay = caughtUpTo != null ? new Replay(replayLsn, checkedAt - caughtUpTo) : null;
+                replays.set(i, replay);
+                if (replay != null && replay.lagNanos <= maxLagNanos) {
+                    usableMin = Math.min(usableMin, replay.lsn);
+                }
+            } catch (SQLException e) {
+                if (replays.getAndSet(i, null) != null) {
+                    log.warn("Replica {} is unreachable, reads go to the primary: {}", i, e.getMessage());
+                }
+            }
+        }
+        // Un réplica resté en arrière n'est plus utilisable tant qu'il n'a pas rejoint cette position
+        replicated.accumulateAndGet(usableMin, Math::max);
+    }
+
+    /**
+     * @return the time of the most recent primary position the replica has replayed, or null if none
+     */
+    private Long caughtUpTo(long replayLsn) {
+        Iterator<Reading> newestFirst = readings.iterator();
+        while (newestFirst.hasNext()) {
+            Reading reading = newestFirst.next();
+            if (reading.lsn <= replayLsn) {
+                return reading.readAt;
+            }
+        }
+        return null;
+    }
+
+    private static final class Reading {
+        private final long readAt;
+        private final long lsn;
+
+        private Reading(long readAt, long lsn) {
+            this.readAt = readAt;
+            this.lsn = lsn;
+        }
+    }
+
+    private static final class Replay {
+        // Position du primaire rejouée par le réplica
+        private final long lsn;
+        // Retard mesuré lors de la dernière vérification
+        private final long lagNanos;
+
+        private Replay(long lsn, long lagNanos) {
+            this.lsn = lsn;
+            this.lagNanos = lagNanos;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.avisdevolss.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the periodic jobs (@Scheduled) of the services
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,9 +1,15 @@
 package org.example.avisdevolss.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.security.BoundedPasswordEncoder;
 import org.example.avisdevolss.security.JwtAuthenticationFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
@@ -23,10 +29,19 @@ import java.util.Arrays;
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    // Port réel du serveur de management (management.server.port), -1 s'il partage celui de l'API
+    private volatile int managementPort = -1;
 
+    /**
+     * BCrypt on its own bounded pool, see security.password-hashing.* in application.properties
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${security.password-hashing.pool-size:0}") int poolSize,
+                                           @Value("${security.password-hashing.queue-capacity:100}") int queueCapacity,
+                                           @Value("${security.password-hashing.timeout-ms:10000}") long timeoutMs) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, timeoutMs, meterRegistry);
     }
 
     @Override
@@ -40,12 +55,26 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             .authorizeRequests()
                 .antMatchers("/api/accounts/register", "/api/accounts/login").permitAll()
                 .antMatchers("/api/accounts/stats").permitAll() // Public endpoint for stats
-                .antMatchers("/actuator/**").permitAll() // Allow actuator endpoints
+                .antMatchers("/actuator/health/**", "/actuator/info").permitAll() // Allow actuator endpoints
+                // Port de management : jamais publié, seul le réseau de supervision (Prometheus) l'atteint
+                .requestMatchers(request -> request.getLocalPort() == managementPort).permitAll()
+                // Actuator servi sur le port de l'API : les métriques sont réservées aux administrateurs
+                .antMatchers("/actuator/**").hasRole(Role.ADMIN.getValue())
                 .anyRequest().authenticated()
             .and()
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
     }
 
+    /**
+     * Remember the port of the management server once it has started, if it has its own
+     */
+    @EventListener
+    public void webServerInitialized(WebServerInitializedEvent event) {
+        if ("management".equals(event.getApplicationContext().getServerNamespace())) {
+            managementPort = event.getWebServer().getPort();
+        }
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,43 @@
+package org.example.avisdevolss.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public method of the @Service classes, as the "service.method" timer
+ * tagged with the class, the method and the exception thrown (if any)
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    // Les callbacks de cycle de vie (ReviewIngestionService) ne sont pas des appels métier
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))"
+            + " && !execution(* org.springframework.context.SmartLifecycle.*(..))"
+            + " && !execution(* org.springframework.context.Lifecycle.*(..))"
+            + " && !execution(* org.springframework.context.Phased.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable t) {
+            exception = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            sample.stop(Timer.builder("service.method")
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
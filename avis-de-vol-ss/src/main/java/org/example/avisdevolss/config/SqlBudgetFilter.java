@@ -0,0 +1,150 @@
+package org.example.avisdevolss.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements of each request, logs a warning when a request goes over its budget
+ * (sql.budget.* properties) and, with sql.tracking.headers, reports the counts in the X-Query-Count
+ * and X-Query-Time-Ms headers. The headers are off by default: they are meant for tests and debugging.
+ * The statements and entity loads of each request are also recorded as "hibernate.request.statements"
+ * and "hibernate.request.entity.loads", tagged with the URI pattern.
+ */
+@Component
+@Slf4j
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+    private static final String COUNTS_ATTRIBUTE = SqlBudgetFilter.class.getName() + ".COUNTS";
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+    private final boolean headers;
+    private final int defaultBudget;
+    private final Map<String, Integer> endpointBudgets = new HashMap<>();
+
+    public SqlBudgetFilter(SqlStatementCounter counter,
+                           MeterRegistry meterRegistry,
+                           @Value("${sql.tracking.headers:false}") boolean headers,
+                           @Value("${sql.budget.default:20}") int defaultBudget,
+                           @Value("${sql.budget.endpoints:}") List<String> endpointBudgets) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+        this.headers = headers;
+        this.defaultBudget = defaultBudget;
+        for (String entry : endpointBudgets) {
+            // "GET /api/reviews=5"
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid sql.budget.endpoints entry: " + entry);
+            }
+            this.endpointBudgets.put(entry.substring(0, separator).trim(),
+                    Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+    }
+
+    /**
+     * Asynchronous request: counting goes on until the final dispatch, where the response is written
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.Counts started = (SqlStatementCounter.Counts) request.getAttribute(COUNTS_ATTRIBUTE);
+        if (isAsyncDispatch(request) && started != null) {
+            counter.attach(started);
+        } else {
+            counter.begin();
+        }
+        HttpServletResponse tracked = headers ? new QueryCountHeaderWriter(response) : response;
+        try {
+            filterChain.doFilter(request, tracked);
+        } finally {
+            if (isAsyncStarted(request)) {
+                request.setAttribute(COUNTS_ATTRIBUTE, counter.end());
+            } else {
+                // Réponse vide ou pas encore envoyée : les en-têtes n'ont pas été écrits
+                if (headers && !response.isCommitted()) {
+                    writeHeaders(response);
+                }
+                SqlStatementCounter.Counts counts = counter.end();
+                checkBudget(request, counts);
+                record(request, counts);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementCounter.Counts counts) {
+        // Le motif d'URI, pas l'URI elle-même, pour garder peu de séries
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("hibernate.request.statements")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(counts.getStatements());
+        DistributionSummary.builder("hibernate.request.entity.loads")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(counts.getEntityLoads());
+    }
+
+    private void checkBudget(HttpServletRequest request, SqlStatementCounter.Counts counts) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        int budget = endpointBudgets.getOrDefault(endpoint, defaultBudget);
+        if (counts.getStatements() > budget) {
+            log.warn("SQL budget exceeded for {}: {} statements (budget {}), {} ms",
+                    endpoint, counts.getStatements(), budget, counts.getTimeMs());
+            Counter.builder("sql.budget.exceeded")
+                    .tag("endpoint", pattern != null ? endpoint : request.getMethod() + " UNKNOWN")
+                    .register(meterRegistry)
+                    .increment();
+        } else {
+            log.debug("{}: {} statements, {} ms", endpoint, counts.getStatements(), counts.getTimeMs());
+        }
+    }
+
+    private void writeHeaders(HttpServletResponse response) {
+        SqlStatementCounter.Counts counts = counter.current();
+        if (counts != null) {
+            response.setHeader(QUERY_COUNT_HEADER, String.valueOf(counts.getStatements()));
+            response.setHeader(QUERY_TIME_HEADER, String.valueOf(counts.getTimeMs()));
+        }
+    }
+
+    /**
+     * Adds the headers just before the response is committed, while they can still be set
+     */
+    private final class QueryCountHeaderWriter extends OnCommittedResponseWrapper {
+
+        QueryCountHeaderWriter(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeaders((HttpServletResponse) getResponse());
+        }
+    }
+}
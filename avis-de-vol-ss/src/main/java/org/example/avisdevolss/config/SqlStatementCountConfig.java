@@ -0,0 +1,34 @@
+package org.example.avisdevolss.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the DataSource in a datasource-proxy that reports every statement to SqlStatementCounter,
+ * and stops the statements of abandoned asynchronous reads
+ */
+@Configuration
+public class SqlStatementCountConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlStatementCountingDataSource(ObjectProvider<SqlStatementCounter> counter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName)
+                            .listener(counter.getObject())
+                            .listener(new AsyncReadExecutor.ExpiredReadGuard())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.avisdevolss.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Counts the JDBC statements executed on the current thread, and their time, along with the entities
+ * Hibernate loads (see HibernateRequestStatistics).
+ * Fed by the datasource proxy (see SqlStatementCountConfig), so JPA, JdbcTemplate and plain JDBC
+ * are all counted; a batch counts as one statement.
+ */
+@Component
+public class SqlStatementCounter implements QueryExecutionListener {
+
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+    /**
+     * Start counting on the current thread, from zero
+     */
+    public void begin() {
+        COUNTS.set(new Counts());
+    }
+
+    /**
+     * Count on the current thread into counts started on another one, for a request served asynchronously
+     */
+    public void attach(Counts counts) {
+        COUNTS.set(counts);
+    }
+
+    /**
+     * @return the counts since begin(), or null if the thread is not counting
+     */
+    public Counts current() {
+        return COUNTS.get();
+    }
+
+    /**
+     * Stop counting on the current thread
+     * @return the counts since begin()
+     */
+    public Counts end() {
+        Counts counts = COUNTS.get();
+        COUNTS.remove();
+        return counts != null ? counts : new Counts();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Counts counts = COUNTS.get();
+        if (counts != null) {
+            counts.statements++;
+            counts.timeMs += execInfo.getElapsedTime();
+        }
+    }
+
+    public static final class Counts {
+        private int statements;
+        private long timeMs;
+        private int entityLoads;
+
+        void entityLoaded() {
+            entityLoads++;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getTimeMs() {
+            return timeMs;
+        }
+
+        public int getEntityLoads() {
+            return entityLoads;
+        }
+    }
+}
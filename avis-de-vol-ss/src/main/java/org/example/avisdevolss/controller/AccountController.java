@@ -8,8 +8,11 @@ import org.example.avisdevolss.dto.AccountResponseDto;
 import org.example.avisdevolss.dto.LoginResponseDto;
 import org.example.avisdevolss.dto.PasswordUpdateDto;
 import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.exception.PasswordHashingRejectedException;
 import org.example.avisdevolss.security.JwtTokenProvider;
 import org.example.avisdevolss.service.AccountService;
+import org.example.avisdevolss.service.StatisticsService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -30,6 +33,7 @@ public class AccountController {
 
     private final AccountService accountService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final StatisticsService statisticsService;
 
     /**
      * Register a new account
@@ -56,36 +60,35 @@ public class AccountController {
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody AccountLoginDto loginDto) {
         try {
-            boolean isValid = accountService.verifyPassword(loginDto.getEmail(), loginDto.getPassword());
-            if (isValid) {
-                // Get user account
-                Optional<Account> accountOpt = accountService.findByEmail(loginDto.getEmail());
-                if (accountOpt.isEmpty()) {
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
-                }
-                
-                Account account = accountOpt.get();
-                
-                // Generate JWT token
-                String token = jwtTokenProvider.generateToken(account.getEmail(), account.getId());
-                
-                // Create response DTO without password
-                AccountResponseDto userDto = new AccountResponseDto(
-                    account.getId(),
-                    account.getFirstName(),
-                    account.getLastName(),
-                    account.getEmail(),
-                    account.getRole()
-                );
-                
-                LoginResponseDto response = new LoginResponseDto(token, userDto);
-                
-                log.info("Successful login for email: {}", loginDto.getEmail());
-                return ResponseEntity.ok(response);
-            } else {
+            Optional<Account> accountOpt = accountService.authenticate(loginDto.getEmail(), loginDto.getPassword());
+            if (accountOpt.isEmpty()) {
                 log.warn("Failed login attempt for email: {}", loginDto.getEmail());
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
             }
+
+            Account account = accountOpt.get();
+
+            // Generate JWT token
+            String token = jwtTokenProvider.generateToken(account.getEmail(), account.getId(), account.getRole());
+
+            // Create response DTO without password
+            AccountResponseDto userDto = new AccountResponseDto(
+                account.getId(),
+                account.getFirstName(),
+                account.getLastName(),
+                account.getEmail(),
+                account.getRole()
+            );
+
+            LoginResponseDto response = new LoginResponseDto(token, userDto);
+
+            log.info("Successful login for email: {}", loginDto.getEmail());
+            return ResponseEntity.ok(response);
+        } catch (PasswordHashingRejectedException e) {
+            log.warn("Login rejected for email {}: {}", loginDto.getEmail(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Too many login attempts, please retry");
         } catch (Exception e) {
             log.error("Login error: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Login failed");
@@ -175,11 +178,12 @@ public class AccountController {
 
     /**
      * Get account statistics
+     * Served from in-memory counters, without opening a transaction
      * @return account count
      */
     @GetMapping("/stats")
     public ResponseEntity<Long> getAccountCount() {
-        long count = accountService.getTotalAccountCount();
+        long count = statisticsService.getAccountCount();
         return ResponseEntity.ok(count);
     }
 
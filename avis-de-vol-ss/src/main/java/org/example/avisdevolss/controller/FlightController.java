@@ -1,14 +1,25 @@
 package org.example.avisdevolss.controller;
 
+import org.example.avisdevolss.config.AsyncReadExecutor;
+import org.example.avisdevolss.dto.CursorPageDto;
 import org.example.avisdevolss.dto.FlightDTO;
+import org.example.avisdevolss.dto.FlightImportResultDto;
 import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.service.FlightImportService;
 import org.example.avisdevolss.service.FlightService;
+import org.example.avisdevolss.service.ResourceVersions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -19,10 +30,17 @@ import java.util.stream.Collectors;
 public class FlightController {
 
     private final FlightService flightService;
+    private final FlightImportService flightImportService;
+    private final ResourceVersions resourceVersions;
+    private final AsyncReadExecutor asyncReadExecutor;
 
     @Autowired
-    public FlightController(FlightService flightService) {
+    public FlightController(FlightService flightService, FlightImportService flightImportService,
+                            ResourceVersions resourceVersions, AsyncReadExecutor asyncReadExecutor) {
         this.flightService = flightService;
+        this.flightImportService = flightImportService;
+        this.resourceVersions = resourceVersions;
+        this.asyncReadExecutor = asyncReadExecutor;
     }
 
     @PostMapping
@@ -36,6 +54,28 @@ public class FlightController {
         }
     }
 
+    /**
+     * Bulk import of a flight schedule (admin only)
+     * The request body is the raw file, CSV with a "flightNumber,company,date" header or NDJSON,
+     * and is streamed: existing flight numbers are updated, new ones inserted.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importFlights(@RequestParam(defaultValue = "csv") String format,
+                                           HttpServletRequest request) {
+        if (!request.isUserInRole(Role.ADMIN.getValue())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!FlightImportService.isSupportedFormat(format)) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Unsupported format: " + format));
+        }
+        try {
+            FlightImportResultDto result = flightImportService.importFlights(request.getInputStream(), format);
+            return ResponseEntity.ok(result);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Could not read import file: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateFlight(@PathVariable Integer id, @RequestBody FlightDTO flightDTO) {
         try {
@@ -57,17 +97,50 @@ public class FlightController {
         }
     }
 
+    /**
+     * Search flights
+     * The ETag is the version of the flights: If-None-Match is answered 304 without querying,
+     * and the response carries the version its read is sure to see (ResourceVersions.readEtag)
+     * The search runs on the read pool (endpoint "flights"), not on the Tomcat thread
+     */
     @GetMapping
-    public ResponseEntity<List<FlightDTO>> findAllFlights(
+    public DeferredResult<ResponseEntity<?>> findAllFlights(
             @RequestParam(required = false) String company,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date startDate,
-            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date endDate) {
-        
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date endDate,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Family.FLIGHTS, "list"))) {
+            return null;
+        }
+        // Pris avant la lecture : un réplica peut ne pas avoir rejoué la version courante
+        String etag = resourceVersions.readEtag(ResourceVersions.Family.FLIGHTS, "list");
+        return asyncReadExecutor.submit("flights",
+                () -> searchFlights(company, startDate, endDate, sort, limit, after, etag));
+    }
+
+    private ResponseEntity<?> searchFlights(String company, Date startDate, Date endDate, String sort,
+                                            Integer limit, String after, String etag) {
+        if (limit != null || after != null) {
+            try {
+                CursorPageDto<Flight> page = flightService.findFlightsPage(company, startDate, endDate, sort, after, limit);
+                List<FlightDTO> items = page.getItems().stream()
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList());
+                return versioned(etag, new CursorPageDto<>(items, page.getNextCursor()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+            }
+        }
+
         List<Flight> flights = flightService.findFlights(company, startDate, endDate);
         List<FlightDTO> flightDTOs = flights.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(flightDTOs);
+        return versioned(etag, flightDTOs);
     }
 
     @GetMapping("/{id}")
@@ -93,9 +166,13 @@ public class FlightController {
     }
 
     @GetMapping("/companies")
-    public ResponseEntity<List<String>> findAllCompanies() {
+    public ResponseEntity<List<String>> findAllCompanies(WebRequest webRequest) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Family.FLIGHTS, "companies"))) {
+            return null;
+        }
+        String etag = resourceVersions.readEtag(ResourceVersions.Family.FLIGHTS, "companies");
         List<String> companies = flightService.findAllCompanies();
-        return ResponseEntity.ok(companies);
+        return versioned(etag, companies);
     }
 
     @GetMapping("/count")
@@ -118,6 +195,14 @@ public class FlightController {
         }
     }
 
+    // no-cache : le client garde la réponse mais revalide à chaque appel avec If-None-Match
+    private static <T> ResponseEntity<T> versioned(String etag, T body) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(body);
+    }
+
     private FlightDTO convertToDTO(Flight flight) {
         FlightDTO dto = new FlightDTO();
         dto.setId(flight.getId());
@@ -0,0 +1,53 @@
+package org.example.avisdevolss.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.avisdevolss.dto.RatingStatsDto;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.service.RatingAggregateService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+
+@RestController
+@RequestMapping("/api/ratings")
+@RequiredArgsConstructor
+public class RatingController {
+
+    private final RatingAggregateService ratingAggregateService;
+
+    /**
+     * Get the rating counters of a flight
+     * @param flightId the flight ID
+     * @return count, sum, average and histogram of notations for each status
+     */
+    @GetMapping("/flights/{flightId}")
+    public ResponseEntity<RatingStatsDto> getFlightStats(@PathVariable Integer flightId) {
+        return ResponseEntity.ok(ratingAggregateService.getFlightStats(flightId));
+    }
+
+    /**
+     * Get the rating counters of a company
+     * @param company the exact company name
+     * @return count, sum, average and histogram of notations for each status
+     */
+    @GetMapping("/companies/{company}")
+    public ResponseEntity<RatingStatsDto> getCompanyStats(@PathVariable String company) {
+        return ResponseEntity.ok(ratingAggregateService.getCompanyStats(company));
+    }
+
+    /**
+     * Recompute all counters from the database (admin only)
+     * @param request the HTTP request
+     * @return no content once rebuilt
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuild(HttpServletRequest request) {
+        if (!request.isUserInRole(Role.ADMIN.getValue())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        ratingAggregateService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.config.AsyncReadExecutor;
 import org.example.avisdevolss.dto.ResponseCreateDto;
 import org.example.avisdevolss.dto.ResponseDto;
 import org.example.avisdevolss.security.JwtTokenProvider;
@@ -13,6 +14,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
@@ -28,6 +30,7 @@ public class ResponseController {
 
     private final ResponseService responseService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final AsyncReadExecutor asyncReadExecutor;
 
     /**
      * Create a new response to a review
@@ -58,18 +61,21 @@ public class ResponseController {
 
     /**
      * Get all responses for a specific review
+     * Runs on the read pool (endpoint "responses"), not on the Tomcat thread
      * @param reviewId the review ID
      * @return list of responses
      */
     @GetMapping("/review/{reviewId}")
-    public ResponseEntity<List<ResponseDto>> getResponsesByReview(@PathVariable Integer reviewId) {
-        try {
-            List<ResponseDto> responses = responseService.getResponsesByReviewId(reviewId);
-            return ResponseEntity.ok(responses);
-        } catch (Exception e) {
-            log.error("Error fetching responses for review {}: {}", reviewId, e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public DeferredResult<ResponseEntity<List<ResponseDto>>> getResponsesByReview(@PathVariable Integer reviewId) {
+        return asyncReadExecutor.submit("responses", () -> {
+            try {
+                List<ResponseDto> responses = responseService.getResponsesByReviewId(reviewId);
+                return ResponseEntity.ok(responses);
+            } catch (Exception e) {
+                log.error("Error fetching responses for review {}: {}", reviewId, e.getMessage());
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        });
     }
 
     /**
@@ -174,9 +180,9 @@ public class ResponseController {
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            if (jwtTokenProvider.validateToken(token)) {
-                return jwtTokenProvider.getUserIdFromToken(token);
-            }
+            return jwtTokenProvider.parseClaims(token)
+                    .map(claims -> claims.get("userId", Integer.class))
+                    .orElse(null);
         }
         return null;
     }
@@ -1,24 +1,41 @@
 package org.example.avisdevolss.controller;
 
+import org.example.avisdevolss.config.AsyncReadExecutor;
+import org.example.avisdevolss.dto.BulkModerationDto;
+import org.example.avisdevolss.dto.BulkModerationResultDto;
+import org.example.avisdevolss.dto.CursorPageDto;
+import org.example.avisdevolss.dto.ModerationClaimDto;
 import org.example.avisdevolss.dto.ReviewCreateDto;
 import org.example.avisdevolss.dto.ReviewFilterDto;
 import org.example.avisdevolss.dto.ReviewPublicDto;
+import org.example.avisdevolss.dto.ReviewSubmissionDto;
 import org.example.avisdevolss.dto.ReviewResponseDto;
 import org.example.avisdevolss.dto.ReviewUpdateDto;
-import org.example.avisdevolss.entity.Account;
 import org.example.avisdevolss.entity.Role;
 import org.example.avisdevolss.entity.ReviewStatus;
-import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.exception.IngestionQueueFullException;
+import org.example.avisdevolss.service.BulkModerationService;
+import org.example.avisdevolss.service.ModerationQueueService;
+import org.example.avisdevolss.service.ReviewEventFeed;
+import org.example.avisdevolss.service.ReviewExportService;
+import org.example.avisdevolss.service.ResourceVersions;
+import org.example.avisdevolss.service.ReviewIngestionService;
 import org.example.avisdevolss.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.util.List;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -26,12 +43,31 @@ import java.util.Optional;
 public class ReviewController {
 
     private final ReviewService reviewService;
-    private final AccountRepository accountRepository;
+    private final ReviewExportService reviewExportService;
+    private final ReviewIngestionService reviewIngestionService;
+    private final ResourceVersions resourceVersions;
+    private final AsyncReadExecutor asyncReadExecutor;
+    private final ReviewEventFeed reviewEventFeed;
+    private final ModerationQueueService moderationQueueService;
+    private final BulkModerationService bulkModerationService;
 
     @Autowired
-    public ReviewController(ReviewService reviewService, AccountRepository accountRepository) {
+    public ReviewController(ReviewService reviewService,
+                            ReviewExportService reviewExportService,
+                            ReviewIngestionService reviewIngestionService,
+                            ResourceVersions resourceVersions,
+                            AsyncReadExecutor asyncReadExecutor,
+                            ReviewEventFeed reviewEventFeed,
+                            ModerationQueueService moderationQueueService,
+                            BulkModerationService bulkModerationService) {
         this.reviewService = reviewService;
-        this.accountRepository = accountRepository;
+        this.reviewExportService = reviewExportService;
+        this.reviewIngestionService = reviewIngestionService;
+        this.resourceVersions = resourceVersions;
+        this.asyncReadExecutor = asyncReadExecutor;
+        this.reviewEventFeed = reviewEventFeed;
+        this.moderationQueueService = moderationQueueService;
+        this.bulkModerationService = bulkModerationService;
     }
 
     /**
@@ -55,6 +91,43 @@ public class ReviewController {
         }
     }
 
+    /**
+     * Submit a review asynchronously
+     * The review is queued and written in the background: the response is 202 with a tracking ID
+     * to poll, or 503 with Retry-After when the queue is full.
+     */
+    @PostMapping("/submissions")
+    public ResponseEntity<ReviewSubmissionDto> submitReview(@Valid @RequestBody ReviewCreateDto reviewCreateDto,
+                                                            HttpServletRequest request) {
+        Integer userId = (Integer) request.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            ReviewSubmissionDto submission = reviewIngestionService.submit(reviewCreateDto, userId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/api/reviews/submissions/" + submission.getTrackingId())
+                    .body(submission);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IngestionQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+    }
+
+    /**
+     * Get the status of an asynchronous review submission
+     */
+    @GetMapping("/submissions/{trackingId}")
+    public ResponseEntity<ReviewSubmissionDto> getSubmission(@PathVariable String trackingId) {
+        return reviewIngestionService.getSubmission(trackingId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Update an existing review
      */
@@ -84,11 +157,13 @@ public class ReviewController {
 
     /**
      * Pubish a review (change status to PUBLIE)
+     * Refused with 409 while another moderator holds a claim on it
      */
     @PutMapping("/{id}/publish")
-    public ResponseEntity<ReviewResponseDto> publishReview(@PathVariable Integer id) {
+    public ResponseEntity<ReviewResponseDto> publishReview(@PathVariable Integer id, HttpServletRequest request) {
         try {
-            ReviewResponseDto publishedReview = reviewService.publishReview(id);
+            ReviewResponseDto publishedReview = bulkModerationService.moderate(id, ReviewStatus.PUBLIE,
+                    (Integer) request.getAttribute("userId"));
             return ResponseEntity.ok(publishedReview);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -97,48 +172,152 @@ public class ReviewController {
 
     /**
      * Reject a review (change status to REJETEE)
+     * Refused with 409 while another moderator holds a claim on it
      */
     @PutMapping("/{id}/reject")
-    public ResponseEntity<ReviewResponseDto> rejectReview(@PathVariable Integer id) {
+    public ResponseEntity<ReviewResponseDto> rejectReview(@PathVariable Integer id, HttpServletRequest request) {
         try {
-            ReviewResponseDto rejectedReview = reviewService.rejectReview(id);
+            ReviewResponseDto rejectedReview = bulkModerationService.moderate(id, ReviewStatus.REJETE,
+                    (Integer) request.getAttribute("userId"));
             return ResponseEntity.ok(rejectedReview);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Publish many pending reviews at once (admin only)
+     * The body gives either "ids" or a "filter" like the search; the response has the outcome of each review
+     */
+    @PutMapping("/publish")
+    public ResponseEntity<BulkModerationResultDto> publishReviews(@RequestBody BulkModerationDto bulkModerationDto,
+                                                                  HttpServletRequest request) {
+        return moderateReviews(bulkModerationDto, ReviewStatus.PUBLIE, request);
+    }
+
+    /**
+     * Reject many pending reviews at once (admin only)
+     * The body gives either "ids" or a "filter" like the search; the response has the outcome of each review
+     */
+    @PutMapping("/reject")
+    public ResponseEntity<BulkModerationResultDto> rejectReviews(@RequestBody BulkModerationDto bulkModerationDto,
+                                                                 HttpServletRequest request) {
+        return moderateReviews(bulkModerationDto, ReviewStatus.REJETE, request);
+    }
+
+    private ResponseEntity<BulkModerationResultDto> moderateReviews(BulkModerationDto bulkModerationDto, ReviewStatus status,
+                                                                    HttpServletRequest request) {
+        if (!isUserAdmin(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if ((bulkModerationDto.getIds() == null) == (bulkModerationDto.getFilter() == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        Integer userId = (Integer) request.getAttribute("userId");
+        BulkModerationResultDto result = bulkModerationDto.getIds() != null
+                ? bulkModerationService.moderate(bulkModerationDto.getIds(), status, userId)
+                : bulkModerationService.moderate(bulkModerationDto.getFilter(), status, userId);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Claim the next pending reviews to moderate (admin only)
+     * Claimed reviews are hidden from the other moderators until published, rejected, released
+     * or until the lease expires; claiming again renews the lease of the reviews already held.
+     */
+    @PostMapping("/claims")
+    public ResponseEntity<ModerationClaimDto> claimReviews(@RequestParam(defaultValue = "10") int limit,
+                                                           HttpServletRequest request) {
+        if (!isUserAdmin(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        ModerationClaimDto claim = moderationQueueService.claim((Integer) request.getAttribute("userId"), limit);
+        return ResponseEntity.ok(claim);
+    }
+
+    /**
+     * Give a claimed review back to the moderation queue
+     */
+    @DeleteMapping("/{id}/claim")
+    public ResponseEntity<Void> releaseReview(@PathVariable Integer id, HttpServletRequest request) {
+        if (!isUserAdmin(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!moderationQueueService.release(id, (Integer) request.getAttribute("userId"))) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Search for reviews
      * All parameters are optional:
      * only admin can see all reviews with account information
+     * When limit or after is given, the result is a page ordered by id with a nextCursor
+     * The ETag is the version of the reviews: If-None-Match is answered 304 without querying,
+     * and the response carries the version its read is sure to see (ResourceVersions.readEtag)
+     * An admin searching pending reviews does not see those claimed by another moderator, and gets no ETag
+     * The search runs on the read pool (endpoint "reviews"), not on the Tomcat thread
      */
     @GetMapping
-    public ResponseEntity<?> findReviews(
+    public DeferredResult<ResponseEntity<?>> findReviews(
             @RequestParam(required = false) String company,
             @RequestParam(required = false) Integer accountId,
             @RequestParam(required = false) Integer notation,
             @RequestParam(required = false) ReviewStatus status,
-            HttpServletRequest request) {
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            HttpServletRequest request,
+            WebRequest webRequest) {
+
+        // Vérifier si l'utilisateur est admin
+        boolean isAdmin = isUserAdmin(request);
+        // Les avis en attente réservés par un autre modérateur sont exclus : la réponse dépend de
+        // l'appelant et de l'expiration des baux, aucune version ne la décrit, donc pas d'ETag
+        boolean pendingForModerator = isAdmin && status == ReviewStatus.TRAITE;
+        // La même URL donne une vue admin ou publique : l'ETag doit les distinguer
+        String variant = isAdmin ? "admin" : "public";
+        if (!pendingForModerator
+                && webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Family.REVIEWS, variant))) {
+            return null;
+        }
+        // Pris avant la lecture : un réplica peut ne pas avoir rejoué la version courante
+        String etag = pendingForModerator ? null : resourceVersions.readEtag(ResourceVersions.Family.REVIEWS, variant);
 
+        ReviewFilterDto filterDto = new ReviewFilterDto();
+        filterDto.setCompany(company);
+        filterDto.setAccountId(accountId);
+        filterDto.setNotation(notation);
+        filterDto.setStatus(status);
+        if (pendingForModerator) {
+            filterDto.setModeratorId((Integer) request.getAttribute("userId"));
+        }
+
+        return asyncReadExecutor.submit("reviews", () -> searchReviews(filterDto, limit, after, isAdmin, etag));
+    }
+
+    private ResponseEntity<?> searchReviews(ReviewFilterDto filterDto, Integer limit, String after,
+                                            boolean isAdmin, String etag) {
         try {
-            ReviewFilterDto filterDto = new ReviewFilterDto();
-            filterDto.setCompany(company);
-            filterDto.setAccountId(accountId);
-            filterDto.setNotation(notation);
-            filterDto.setStatus(status);
+            boolean paginated = limit != null || after != null;
 
-            // Vérifier si l'utilisateur est admin
-            boolean isAdmin = isUserAdmin(request);
+            if (paginated) {
+                if (isAdmin) {
+                    CursorPageDto<ReviewResponseDto> page = reviewService.findReviewsPage(filterDto, after, limit);
+                    return versioned(etag, page);
+                }
+                CursorPageDto<ReviewPublicDto> page = reviewService.findReviewsPageForPublic(filterDto, after, limit);
+                return versioned(etag, page);
+            }
 
             if (isAdmin) {
                 // Admin : retourner les informations complètes avec les données de compte
                 List<ReviewResponseDto> reviews = reviewService.findReviews(filterDto);
-                return ResponseEntity.ok(reviews);
+                return versioned(etag, reviews);
             } else {
                 // Utilisateur normal : retourner les avis sans informations de compte
                 List<ReviewPublicDto> reviews = reviewService.findReviewsForPublic(filterDto);
-                return ResponseEntity.ok(reviews);
+                return versioned(etag, reviews);
             }
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
@@ -146,16 +325,72 @@ public class ReviewController {
     }
 
     /**
-     * Check if the user is an admin
+     * Live feed of published reviews and new responses (Server-Sent Events)
+     * Replaces polling the search: events are "review-published" (ReviewPublicDto) and "response-created" (ResponseDto).
+     * A client reconnecting with Last-Event-ID gets the events it missed, or a "reset" event
+     * when they are no longer buffered, after which it should reload the search.
      */
-    private boolean isUserAdmin(HttpServletRequest request) {
-        Integer userId = (Integer) request.getAttribute("userId");
-        if (userId == null) {
-            return false; // Utilisateur non connecté
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamReviews(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return reviewEventFeed.subscribe(lastEventId);
+    }
+
+    /**
+     * Export reviews (admin only)
+     * Same filters as the search, streamed as NDJSON (default) or CSV without loading them in memory
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportReviews(
+            @RequestParam(required = false) String company,
+            @RequestParam(required = false) Integer accountId,
+            @RequestParam(required = false) Integer notation,
+            @RequestParam(required = false) ReviewStatus status,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletRequest request) {
+
+        if (!isUserAdmin(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!ReviewExportService.isSupportedFormat(format)) {
+            return ResponseEntity.badRequest().build();
         }
+        if (notation != null && (notation < 1 || notation > 5)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        ReviewFilterDto filterDto = new ReviewFilterDto();
+        filterDto.setCompany(company);
+        filterDto.setAccountId(accountId);
+        filterDto.setNotation(notation);
+        filterDto.setStatus(status);
 
-        Optional<Account> account = accountRepository.findById(userId);
-        return account.isPresent() && account.get().getRole() == Role.ADMIN;
+        boolean csv = "csv".equals(format);
+        StreamingResponseBody body = outputStream -> reviewExportService.exportReviews(filterDto, format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reviews." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
+    // no-cache : le client garde la réponse mais revalide à chaque appel avec If-None-Match
+    private static <T> ResponseEntity<T> versioned(String etag, T body) {
+        if (etag == null) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(body);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(body);
+    }
+
+    /**
+     * Check if the user is an admin
+     * The role comes from the JWT, resolved by the authentication filter without any DB lookup
+     */
+    private boolean isUserAdmin(HttpServletRequest request) {
+        return request.isUserInRole(Role.ADMIN.getValue());
     }
 
     /**
@@ -164,21 +399,9 @@ public class ReviewController {
     @GetMapping("/{id}")
     public ResponseEntity<ReviewResponseDto> getReviewById(@PathVariable Integer id) {
         try {
-            // Cette méthode n'existe pas encore dans le service, on peut l'ajouter si nécessaire
-            ReviewFilterDto filterDto = new ReviewFilterDto();
-            List<ReviewResponseDto> reviews = reviewService.findReviews(filterDto);
-
-            ReviewResponseDto review = reviews.stream()
-                    .filter(r -> r.getId().equals(id))
-                    .findFirst()
-                    .orElse(null);
-
-            if (review != null) {
-                return ResponseEntity.ok(review);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
+            ReviewResponseDto review = reviewService.getReviewById(id);
+            return ResponseEntity.ok(review);
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -0,0 +1,14 @@
+package org.example.avisdevolss.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BulkModerationDto {
+    // Soit une liste d'identifiants, soit un filtre sur les avis en attente
+    private List<Integer> ids;
+    private ReviewFilterDto filter;
+}
@@ -0,0 +1,15 @@
+package org.example.avisdevolss.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+public class BulkModerationResultDto {
+    private int updated;
+    // Résultat par identifiant d'avis
+    private Map<Integer, ModerationOutcome> outcomes = new LinkedHashMap<>();
+}
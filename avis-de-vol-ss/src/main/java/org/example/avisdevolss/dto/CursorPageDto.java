@@ -0,0 +1,18 @@
+package org.example.avisdevolss.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> items;
+    // Curseur opaque à renvoyer dans "after" pour la page suivante, null si dernière page
+    private String nextCursor;
+}
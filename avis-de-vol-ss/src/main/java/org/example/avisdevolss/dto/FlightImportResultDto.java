@@ -0,0 +1,18 @@
+package org.example.avisdevolss.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class FlightImportResultDto {
+    // Lignes insérées ou mises à jour
+    private long upserted;
+    private long rejected;
+    private int batches;
+    // Premières erreurs de lecture, avec leur numéro de ligne
+    private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package org.example.avisdevolss.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModerationClaimDto {
+    private List<ReviewResponseDto> reviews;
+    // Au-delà, les avis non traités retournent dans la file ; null si rien n'a été réservé
+    private Date leaseExpiresAt;
+}
@@ -0,0 +1,10 @@
+package org.example.avisdevolss.dto;
+
+public enum ModerationOutcome {
+    UPDATED,
+    NOT_FOUND,
+    // Déjà publié ou rejeté
+    NOT_PENDING,
+    // Réservé par un autre modérateur
+    CLAIMED
+}
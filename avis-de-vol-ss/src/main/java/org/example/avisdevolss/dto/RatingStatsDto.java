@@ -0,0 +1,19 @@
+package org.example.avisdevolss.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.avisdevolss.entity.ReviewStatus;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingStatsDto {
+    private Integer flightId;
+    private String company;
+    private Map<ReviewStatus, StatusRatingDto> byStatus;
+}
@@ -11,4 +11,6 @@ public class ReviewFilterDto {
     private Integer accountId;
     private Integer notation;
     private ReviewStatus status;
+    // Modérateur qui cherche : les avis réservés par un autre modérateur sont exclus
+    private Integer moderatorId;
 }
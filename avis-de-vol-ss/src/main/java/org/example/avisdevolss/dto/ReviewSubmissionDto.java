@@ -0,0 +1,19 @@
+package org.example.avisdevolss.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewSubmissionDto {
+    private String trackingId;
+    private SubmissionStatus status;
+    // Renseigné une fois l'avis enregistré
+    private Integer reviewId;
+    // Renseigné si l'avis n'a pas pu être enregistré
+    private String error;
+}
@@ -0,0 +1,20 @@
+package org.example.avisdevolss.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusRatingDto {
+    private long count;
+    private long sum;
+    private double average;
+    // Nombre d'avis pour chaque note, de 1 à 5
+    private List<Long> histogram;
+}
@@ -0,0 +1,7 @@
+package org.example.avisdevolss.dto;
+
+public enum SubmissionStatus {
+    PENDING,
+    CREATED,
+    FAILED
+}
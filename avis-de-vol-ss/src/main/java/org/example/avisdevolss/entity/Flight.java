@@ -3,18 +3,32 @@ package org.example.avisdevolss.entity;
 import javax.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Date;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "flight")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "flight")
+@Table(name = "flight", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_flight_flight_number", columnNames = "flight_number")
+}, indexes = {
+        @Index(name = "idx_flight_date_id", columnList = "date, id"),
+        @Index(name = "idx_flight_company", columnList = "company")
+})
 public class Flight {
+    // Identifiants tirés par blocs de flight_seq (V5__flight_sequence.sql), aussi par l'import
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "flight_seq")
+    @SequenceGenerator(name = "flight_seq", sequenceName = "flight_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Integer id;
 
+    @Column(name = "flight_number")
     private String flightNumber;
 
     private String company;
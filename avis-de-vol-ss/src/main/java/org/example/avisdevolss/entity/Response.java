@@ -16,7 +16,8 @@ public class Response {
     @Column(nullable = false)
     private String content;
 
-    @ManyToOne
+    // Seul l'identifiant de l'avis est lu : inutile de recharger l'avis pour chaque réponse
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "review_id", nullable = false)
     private Review review;
 
@@ -4,10 +4,16 @@ import javax.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
 @Getter
 @Setter
 @Entity
-@Table(name = "review")
+@Table(name = "review", indexes = {
+        @Index(name = "idx_review_status_id", columnList = "status, id")
+})
 public class Review {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -27,4 +33,16 @@ public class Review {
     @ManyToOne
     @JoinColumn(name = "flight_id", nullable = false)
     private Flight flight;
+
+    // Bail de modération : posé et levé uniquement en SQL par ModerationQueueService,
+    // jamais écrit par Hibernate pour qu'une mise à jour de l'avis ne l'écrase pas
+    @Column(name = "claimed_by", insertable = false, updatable = false)
+    private Integer claimedBy;
+
+    @Column(name = "claim_expires_at", insertable = false, updatable = false)
+    private Date claimExpiresAt;
+
+    @OneToMany(mappedBy = "review")
+    @OrderBy("id")
+    private List<Response> responses = new ArrayList<>();
 }
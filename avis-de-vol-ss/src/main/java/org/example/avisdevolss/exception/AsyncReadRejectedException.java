@@ -0,0 +1,11 @@
+package org.example.avisdevolss.exception;
+
+/**
+ * Thrown when an asynchronous read cannot be queued, or does not complete within its endpoint timeout
+ */
+public class AsyncReadRejectedException extends RuntimeException {
+
+    public AsyncReadRejectedException(String message) {
+        super(message);
+    }
+}
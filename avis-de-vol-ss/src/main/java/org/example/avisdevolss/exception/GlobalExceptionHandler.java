@@ -1,6 +1,7 @@
 package org.example.avisdevolss.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -21,6 +22,44 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(e.getMessage());
     }
 
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<String> handlePasswordHashingRejected(PasswordHashingRejectedException e) {
+        log.warn("PasswordHashingRejectedException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<String> handleIngestionQueueFull(IngestionQueueFullException e) {
+        log.warn("IngestionQueueFullException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(AsyncReadRejectedException.class)
+    public ResponseEntity<String> handleAsyncReadRejected(AsyncReadRejectedException e) {
+        log.warn("AsyncReadRejectedException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(ReviewFeedFullException.class)
+    public ResponseEntity<String> handleReviewFeedFull(ReviewFeedFullException e) {
+        log.warn("ReviewFeedFullException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(ReviewClaimedException.class)
+    public ResponseEntity<String> handleReviewClaimed(ReviewClaimedException e) {
+        log.warn("ReviewClaimedException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
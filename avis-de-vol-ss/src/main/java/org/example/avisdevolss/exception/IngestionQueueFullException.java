@@ -0,0 +1,11 @@
+package org.example.avisdevolss.exception;
+
+/**
+ * Thrown when the review ingestion queue is full or no longer accepts submissions
+ */
+public class IngestionQueueFullException extends RuntimeException {
+
+    public IngestionQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.avisdevolss.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated and cannot take more work
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.avisdevolss.exception;
+
+/**
+ * Thrown when a moderator acts on a review currently claimed by another moderator
+ */
+public class ReviewClaimedException extends RuntimeException {
+
+    public ReviewClaimedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.avisdevolss.exception;
+
+/**
+ * Thrown when the review feed has reached its maximum number of subscribers
+ */
+public class ReviewFeedFullException extends RuntimeException {
+
+    public ReviewFeedFullException(String message) {
+        super(message);
+    }
+}
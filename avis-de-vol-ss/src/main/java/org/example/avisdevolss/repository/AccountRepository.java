@@ -23,4 +23,8 @@ public interface AccountRepository extends JpaRepository<Account, Integer> {
     
     @Query("SELECT a FROM Account a WHERE a.firstName LIKE %:name% OR a.lastName LIKE %:name%")
     List<Account> findByFullNameContaining(@Param("name") String name);
+
+    // Current role, read from the database rather than the second-level cache (see RoleRevocationCache)
+    @Query("SELECT a.role FROM Account a WHERE a.id = :id")
+    Optional<Role> findRoleById(@Param("id") Integer id);
 }
@@ -2,13 +2,19 @@ package org.example.avisdevolss.repository;
 
 import org.example.avisdevolss.entity.Flight;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
-public interface FlightRepository extends JpaRepository<Flight, Integer> {
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
+public interface FlightRepository extends JpaRepository<Flight, Integer>, JpaSpecificationExecutor<Flight>,
+        FlightRepositoryCustom {
 
     Optional<Flight> findByFlightNumber(String flightNumber);
 
@@ -20,12 +26,16 @@ public interface FlightRepository extends JpaRepository<Flight, Integer> {
 
     List<Flight> findByFlightNumberContainingIgnoreCase(String flightNumber);
 
+    // Requêtes en cache, invalidées par Hibernate à chaque écriture sur la table flight
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("SELECT DISTINCT f.company FROM Flight f ORDER BY f.company")
     List<String> findAllCompanies();
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("SELECT MIN(f.date) FROM Flight f")
     Date findMinDate();
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("SELECT MAX(f.date) FROM Flight f")
     Date findMaxDate();
 
@@ -34,4 +44,7 @@ public interface FlightRepository extends JpaRepository<Flight, Integer> {
 
     @Query("SELECT COUNT(DISTINCT f.company) FROM Flight f")
     long countDistinctCompanies();
+
+    @Query("SELECT f.company, COUNT(f) FROM Flight f GROUP BY f.company")
+    List<Object[]> countFlightsByCompany();
 }
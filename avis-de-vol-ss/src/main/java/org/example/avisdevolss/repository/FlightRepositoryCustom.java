@@ -0,0 +1,13 @@
+package org.example.avisdevolss.repository;
+
+import org.example.avisdevolss.entity.Flight;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface FlightRepositoryCustom {
+
+    // Method to fetch at most "limit" flights matching the specification in the given order
+    List<Flight> findAll(Specification<Flight> spec, Sort sort, int limit);
+}
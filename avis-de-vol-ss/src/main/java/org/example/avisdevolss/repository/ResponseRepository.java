@@ -2,12 +2,18 @@ package org.example.avisdevolss.repository;
 
 import org.example.avisdevolss.entity.Response;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ResponseRepository extends JpaRepository<Response, Integer> {
     List<Response> findByReviewId(Integer reviewId);
     List<Response> findByUserId(Integer userId);
+
+    @Query("SELECT r FROM Response r JOIN FETCH r.user WHERE r.review.id IN :reviewIds ORDER BY r.id")
+    List<Response> findByReviewIdIn(@Param("reviewIds") Collection<Integer> reviewIds);
 }
@@ -2,13 +2,28 @@ package org.example.avisdevolss.repository;
 
 import org.example.avisdevolss.entity.Review;
 import org.example.avisdevolss.entity.ReviewStatus;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
-public interface ReviewRepository extends JpaRepository<Review, Integer>, JpaSpecificationExecutor<Review> {
+public interface ReviewRepository extends JpaRepository<Review, Integer>, JpaSpecificationExecutor<Review>,
+        ReviewRepositoryCustom {
+
+    // Load account and flight in the same query instead of one select per distinct account/flight
+    @Override
+    @EntityGraph(attributePaths = {"account", "flight"})
+    List<Review> findAll(Specification<Review> spec);
+
+    // Method to fetch a review with its flight, account and responses in a single query
+    @Query("SELECT DISTINCT r FROM Review r JOIN FETCH r.account JOIN FETCH r.flight " +
+           "LEFT JOIN FETCH r.responses resp LEFT JOIN FETCH resp.user WHERE r.id = :id")
+    Optional<Review> findWithDetailsById(@Param("id") Integer id);
 
     // Method to find reviews by flight id
     List<Review> findByFlightId(Integer flightId);
@@ -26,6 +41,11 @@ public interface ReviewRepository extends JpaRepository<Review, Integer>, JpaSpe
     @Query("SELECT COUNT(r) FROM Review r")
     long countAllReviews();
 
+    // Method to count reviews grouped by flight, company, status and notation (rating aggregates rebuild)
+    @Query("SELECT r.flight.id, r.flight.company, r.status, r.notation, COUNT(r) FROM Review r " +
+           "GROUP BY r.flight.id, r.flight.company, r.status, r.notation")
+    List<Object[]> countByFlightStatusAndNotation();
+
     // Method to check if reviews exist for a specific account
     boolean existsByAccountId(Integer accountId);
 
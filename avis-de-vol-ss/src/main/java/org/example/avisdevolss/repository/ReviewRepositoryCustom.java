@@ -0,0 +1,12 @@
+package org.example.avisdevolss.repository;
+
+import org.example.avisdevolss.entity.Review;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ReviewRepositoryCustom {
+
+    // Method to fetch at most "limit" reviews matching the specification, ordered by id, after the given id
+    List<Review> findAfterId(Specification<Review> spec, Integer afterId, int limit);
+}
@@ -1,12 +1,18 @@
 package org.example.avisdevolss.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.entity.Role;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -15,6 +21,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -22,20 +30,32 @@ import java.util.ArrayList;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
+    private final RoleRevocationCache roleRevocationCache;
+    private final MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                   FilterChain filterChain) throws ServletException, IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "anonymous";
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String email = tokenProvider.getEmailFromToken(jwt);
-                Integer userId = tokenProvider.getUserIdFromToken(jwt);
+            Optional<Claims> claims = StringUtils.hasText(jwt) ? tokenProvider.parseClaims(jwt) : Optional.empty();
+            if (claims.isPresent()) {
+                // Une seule vérification de signature par requête
+                String email = claims.get().getSubject();
+                Integer userId = claims.get().get("userId", Integer.class);
+
+                // Le rôle vient du token tant qu'il est récent et que le compte n'a pas changé de rôle depuis
+                Role role = roleRevocationCache.resolveRole(userId, tokenProvider.getRoleFromClaims(claims.get()),
+                        claims.get().getIssuedAt());
+                List<GrantedAuthority> authorities = new ArrayList<>();
+                authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getValue()));
 
                 // Create authentication token
                 UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(email, null, new ArrayList<>());
+                    new UsernamePasswordAuthenticationToken(email, null, authorities);
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -43,10 +63,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 // Add userId to request attributes for easy access in controllers
                 request.setAttribute("userId", userId);
                 request.setAttribute("userEmail", email);
+                request.setAttribute("userRole", role);
+                outcome = "authenticated";
+            } else if (StringUtils.hasText(jwt)) {
+                outcome = "rejected";
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
+            outcome = "error";
         }
+        sample.stop(Timer.builder("jwt.authentication")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
 
         filterChain.doFilter(request, response);
     }
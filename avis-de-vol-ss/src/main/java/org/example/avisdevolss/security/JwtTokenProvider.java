@@ -1,13 +1,27 @@
 package org.example.avisdevolss.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.entity.Role;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Slf4j
@@ -15,64 +29,155 @@ public class JwtTokenProvider {
 
     private final SecretKey key;
     private final int jwtExpirationInMs;
+    // JwtParser est immuable et thread-safe : on le construit une seule fois
+    private final JwtParser parser;
+    // Tokens déjà vérifiés, indexés par empreinte SHA-256 et expirés à leur date "exp"
+    private final Cache<String, Claims> verifiedTokens;
+    private final MeterRegistry meterRegistry;
+    private final Counter cachedVerifications;
+    private final Counter validVerifications;
 
     public JwtTokenProvider(@Value("${jwt.secret:mySecretKey123456789012345678901234567890}") String jwtSecret,
-                           @Value("${jwt.expiration:86400000}") int jwtExpirationInMs) {
+                           @Value("${jwt.expiration:86400000}") int jwtExpirationInMs,
+                           @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                           MeterRegistry meterRegistry) {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
         this.jwtExpirationInMs = jwtExpirationInMs;
+        this.parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+        this.meterRegistry = meterRegistry;
+        this.cachedVerifications = verificationCounter("cached");
+        this.validVerifications = verificationCounter("valid");
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.claims");
     }
 
-    public String generateToken(String email, Integer userId) {
+    public String generateToken(String email, Integer userId, Role role) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
         return Jwts.builder()
                 .subject(email)
                 .claim("userId", userId)
+                .claim("role", role.getValue())
                 .issuedAt(new Date())
                 .expiration(expiryDate)
                 .signWith(key)
                 .compact();
     }
 
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.getSubject();
-    }
-
-    public Integer getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Verify the token signature and expiration, and return all its claims
+     * @param token the compact JWT
+     * @return the claims, or empty if the token is invalid or expired
+     */
+    public Optional<Claims> parseClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
 
-        return claims.get("userId", Integer.class);
-    }
+        String digest = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            cachedVerifications.increment();
+            return Optional.of(cached);
+        }
 
-    public boolean validateToken(String authToken) {
+        String failure;
         try {
-            Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(authToken);
-            return true;
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            verifiedTokens.put(digest, claims);
+            validVerifications.increment();
+            return Optional.of(claims);
         } catch (SecurityException ex) {
             log.error("Invalid JWT signature");
+            failure = "invalid_signature";
         } catch (MalformedJwtException ex) {
             log.error("Invalid JWT token");
+            failure = "malformed";
         } catch (ExpiredJwtException ex) {
             log.error("Expired JWT token");
+            failure = "expired";
         } catch (UnsupportedJwtException ex) {
             log.error("Unsupported JWT token");
+            failure = "unsupported";
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty.");
+            failure = "empty";
+        }
+        verificationCounter(failure).increment();
+        return Optional.empty();
+    }
+
+    public String getEmailFromToken(String token) {
+        return parseClaims(token)
+                .map(Claims::getSubject)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
+    }
+
+    public Integer getUserIdFromToken(String token) {
+        return parseClaims(token)
+                .map(claims -> claims.get("userId", Integer.class))
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
+    }
+
+    /**
+     * @return the role carried by the token, USER for tokens without a role claim
+     */
+    public Role getRoleFromClaims(Claims claims) {
+        String role = claims.get("role", String.class);
+        return Role.ADMIN.getValue().equals(role) ? Role.ADMIN : Role.USER;
+    }
+
+    public boolean validateToken(String authToken) {
+        return parseClaims(authToken).isPresent();
+    }
+
+    // "cached" : servi par le cache, "valid" : signature vérifiée, sinon la cause du rejet
+    private Counter verificationCounter(String result) {
+        return Counter.builder("jwt.verifications")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Keep a verified token in the cache until its own expiration date, never longer
+     */
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return 0;
+            }
+            long remainingMs = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
         }
-        return false;
     }
 }
@@ -0,0 +1,74 @@
+package org.example.avisdevolss.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which role a token really grants.
+ * The role claim is trusted for jwt.role-ttl-ms after the token was issued, unless the account's role
+ * changed on this instance since then. Past that delay, or after a change, the role is read from the
+ * database and kept for the same delay, so a change made on another instance applies within jwt.role-ttl-ms.
+ * Losing a cached role only costs a query: no eviction can bring back a revoked role.
+ */
+@Component
+public class RoleRevocationCache {
+
+    private final AccountRepository accountRepository;
+    private final long roleTtlMs;
+    // Changements de rôle faits ici ; sans limite de taille, une entrée ne sert que pendant roleTtlMs
+    private final Cache<Integer, Long> revokedAt;
+    private final Cache<Integer, Role> currentRoles;
+
+    public RoleRevocationCache(AccountRepository accountRepository,
+                               @Value("${jwt.role-ttl-ms:300000}") long roleTtlMs,
+                               @Value("${jwt.role-cache.max-size:10000}") long maxSize) {
+        this.accountRepository = accountRepository;
+        this.roleTtlMs = roleTtlMs;
+        this.revokedAt = Caffeine.newBuilder()
+                .expireAfterWrite(roleTtlMs, TimeUnit.MILLISECONDS)
+                .build();
+        this.currentRoles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(roleTtlMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Invalidate the role claim of every token already issued to this account
+     */
+    public void revoke(Integer userId) {
+        revokedAt.put(userId, System.currentTimeMillis());
+        currentRoles.invalidate(userId);
+    }
+
+    /**
+     * @param claimedRole the role carried by the token
+     * @param issuedAt the "iat" claim of the token
+     * @return the role to grant, USER for an account that no longer exists
+     */
+    public Role resolveRole(Integer userId, Role claimedRole, Date issuedAt) {
+        if (claimedRole != null && issuedAt != null
+                && System.currentTimeMillis() - issuedAt.getTime() < roleTtlMs
+                && !revokedSince(userId, issuedAt)) {
+            return claimedRole;
+        }
+        Role role = currentRoles.get(userId, id -> accountRepository.findRoleById(id).orElse(null));
+        return role != null ? role : Role.USER;
+    }
+
+    /**
+     * "iat" is truncated to the second: a token issued in the same second as the change may predate it,
+     * so only a token from a later second is known to carry the new role
+     */
+    private boolean revokedSince(Integer userId, Date issuedAt) {
+        Long revocation = revokedAt.getIfPresent(userId);
+        return revocation != null && issuedAt.getTime() < revocation - revocation % 1000 + 1000;
+    }
+}
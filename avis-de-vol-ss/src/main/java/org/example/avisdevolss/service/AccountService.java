@@ -2,6 +2,7 @@ package org.example.avisdevolss.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.config.CacheConfig;
 import org.example.avisdevolss.dto.AccountRegistrationDto;
 import org.example.avisdevolss.dto.AccountResponseDto;
 import org.example.avisdevolss.dto.PasswordUpdateDto;
@@ -9,9 +10,15 @@ import org.example.avisdevolss.entity.Account;
 import org.example.avisdevolss.entity.Role;
 import org.example.avisdevolss.repository.AccountRepository;
 import org.example.avisdevolss.repository.ReviewRepository;
+import org.example.avisdevolss.security.RoleRevocationCache;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
@@ -26,6 +33,10 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final ReviewRepository reviewRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RoleRevocationCache roleRevocationCache;
+    private final StatisticsService statisticsService;
+    private final ResourceVersions resourceVersions;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Create a new account
@@ -33,19 +44,24 @@ public class AccountService {
      * @return the created account
      * @throws IllegalArgumentException if email already exists
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Account createAccount(Account account) {
         log.info("Creating new account for email: {}", account.getEmail());
-        
-        if (accountRepository.existsByEmail(account.getEmail())) {
-            throw new IllegalArgumentException("Account with email " + account.getEmail() + " already exists");
-        }
-        
-        // Encrypt password before saving
+
+        // Encrypt password before saving, without holding a connection
         if (account.getPassword() != null) {
             account.setPassword(passwordEncoder.encode(account.getPassword()));
         }
-        
-        Account savedAccount = accountRepository.save(account);
+
+        Account savedAccount = writeAccount(account.getEmail(), status -> {
+            if (accountRepository.existsByEmail(account.getEmail())) {
+                throw new IllegalArgumentException("Account with email " + account.getEmail() + " already exists");
+            }
+            Account saved = accountRepository.save(account);
+            resourceVersions.bump(ResourceVersions.Family.ACCOUNTS);
+            return saved;
+        });
+        statisticsService.accountCreated();
         log.info("Successfully created account with ID: {}", savedAccount.getId());
         return savedAccount;
     }
@@ -89,29 +105,39 @@ public class AccountService {
      * @return the updated account
      * @throws IllegalArgumentException if account not found or email conflict
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CacheEvict(cacheNames = CacheConfig.REVIEWS_CACHE, allEntries = true)
     public Account updateAccount(Integer id, Account updatedAccount) {
         log.info("Updating account with ID: {}", id);
-        
-        Account existingAccount = accountRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found with ID: " + id));
 
-        // Check if email is being changed and if new email already exists
-        if (!existingAccount.getEmail().equals(updatedAccount.getEmail()) && 
-            accountRepository.existsByEmail(updatedAccount.getEmail())) {
-            throw new IllegalArgumentException("Account with email " + updatedAccount.getEmail() + " already exists");
-        }
-
-        // Update fields
-        existingAccount.setFirstName(updatedAccount.getFirstName());
-        existingAccount.setLastName(updatedAccount.getLastName());
-        existingAccount.setEmail(updatedAccount.getEmail());
-        
-        // Only update password if provided
-        if (updatedAccount.getPassword() != null && !updatedAccount.getPassword().isEmpty()) {
-            existingAccount.setPassword(passwordEncoder.encode(updatedAccount.getPassword()));
-        }
-
-        Account savedAccount = accountRepository.save(existingAccount);
+        // Only update password if provided, hashed before the transaction
+        String encodedPassword = updatedAccount.getPassword() != null && !updatedAccount.getPassword().isEmpty()
+                ? passwordEncoder.encode(updatedAccount.getPassword())
+                : null;
+
+        Account savedAccount = writeAccount(updatedAccount.getEmail(), status -> {
+            Account existingAccount = accountRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Account not found with ID: " + id));
+
+            // Check if email is being changed and if new email already exists
+            if (!existingAccount.getEmail().equals(updatedAccount.getEmail()) &&
+                accountRepository.existsByEmail(updatedAccount.getEmail())) {
+                throw new IllegalArgumentException("Account with email " + updatedAccount.getEmail() + " already exists");
+            }
+
+            // Update fields
+            existingAccount.setFirstName(updatedAccount.getFirstName());
+            existingAccount.setLastName(updatedAccount.getLastName());
+            existingAccount.setEmail(updatedAccount.getEmail());
+            if (encodedPassword != null) {
+                existingAccount.setPassword(encodedPassword);
+            }
+
+            Account saved = accountRepository.save(existingAccount);
+            // Le nom des auteurs apparaît dans les avis et les réponses
+            resourceVersions.bump(ResourceVersions.Family.REVIEWS, ResourceVersions.Family.ACCOUNTS);
+            return saved;
+        });
         log.info("Successfully updated account with ID: {}", savedAccount.getId());
         return savedAccount;
     }
@@ -134,6 +160,8 @@ public class AccountService {
         }
 
         accountRepository.deleteById(id);
+        statisticsService.accountDeleted();
+        resourceVersions.bump(ResourceVersions.Family.ACCOUNTS);
         log.info("Successfully deleted account with ID: {}", id);
     }
 
@@ -186,14 +214,19 @@ public class AccountService {
      * @param newPassword the new password
      * @throws IllegalArgumentException if account not found
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updatePassword(Integer id, String newPassword) {
         log.info("Updating password for account ID: {}", id);
-        
-        Account account = accountRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found with ID: " + id));
-        
-        account.setPassword(passwordEncoder.encode(newPassword));
-        accountRepository.save(account);
+
+        String encodedPassword = passwordEncoder.encode(newPassword);
+        transactionTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Account not found with ID: " + id));
+
+            account.setPassword(encodedPassword);
+            accountRepository.save(account);
+            resourceVersions.bump(ResourceVersions.Family.ACCOUNTS);
+        });
         log.info("Successfully updated password for account ID: {}", id);
     }
 
@@ -203,7 +236,7 @@ public class AccountService {
      * @param rawPassword the raw password to verify
      * @return true if password matches
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean verifyPassword(String email, String rawPassword) {
         log.debug("Verifying password for email: {}", email);
         
@@ -215,6 +248,21 @@ public class AccountService {
         return passwordEncoder.matches(rawPassword, accountOpt.get().getPassword());
     }
 
+    /**
+     * Check credentials with a single account lookup
+     * @param email the email address
+     * @param rawPassword the raw password to verify
+     * @return Optional containing the account if the password matches
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<Account> authenticate(String email, String rawPassword) {
+        log.debug("Authenticating email: {}", email);
+        // Le compte est lu dans la transaction du repository ; BCrypt (file d'attente comprise) tourne
+        // ensuite sans connexion, sinon chaque connexion en attente de hachage bloquerait le pool JDBC
+        Optional<Account> account = accountRepository.findByEmail(email);
+        return account.filter(found -> passwordEncoder.matches(rawPassword, found.getPassword()));
+    }
+
     /**
      * Get total count of accounts
      * @return total number of accounts
@@ -231,6 +279,7 @@ public class AccountService {
      * @param registrationDto the registration data
      * @return account response DTO
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AccountResponseDto createAccount(AccountRegistrationDto registrationDto) {
         Account account = new Account();
         account.setFirstName(registrationDto.getFirstName());
@@ -251,6 +300,7 @@ public class AccountService {
      * @param password admin password
      * @return account response DTO
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AccountResponseDto createAdminAccount(String firstName, String lastName, String email, String password) {
         Account account = new Account();
         account.setFirstName(firstName);
@@ -277,6 +327,9 @@ public class AccountService {
         
         account.setRole(role);
         Account savedAccount = accountRepository.save(account);
+        // Les tokens déjà émis portent l'ancien rôle
+        roleRevocationCache.revoke(id);
+        resourceVersions.bump(ResourceVersions.Family.ACCOUNTS);
         log.info("Successfully updated role for account ID: {}", id);
         return convertToResponseDto(savedAccount);
     }
@@ -303,18 +356,6 @@ public class AccountService {
                 .collect(Collectors.toList());
     }
 
-    /**
-     * Check if account is admin
-     * @param id the account ID
-     * @return true if account is admin
-     */
-    @Transactional(readOnly = true)
-    public boolean isAdmin(Integer id) {
-        return findById(id)
-                .map(account -> account.getRole() == Role.ADMIN)
-                .orElse(false);
-    }
-
     /**
      * Get account by ID as DTO
      * @param id the account ID
@@ -351,6 +392,7 @@ public class AccountService {
      * @param id the account ID
      * @param passwordUpdateDto the password update data
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updatePassword(Integer id, PasswordUpdateDto passwordUpdateDto) {
         updatePassword(id, passwordUpdateDto.getNewPassword());
     }
@@ -369,6 +411,19 @@ public class AccountService {
 
     // Utility methods
 
+    /**
+     * Run the email check and the save of an account in one transaction, after the password was hashed without one
+     * @param email the email the account will have
+     * @throws IllegalArgumentException if a concurrent write took the email in the meantime (unique constraint)
+     */
+    private Account writeAccount(String email, TransactionCallback<Account> write) {
+        try {
+            return transactionTemplate.execute(write);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Account with email " + email + " already exists");
+        }
+    }
+
     /**
      * Convert Account entity to AccountResponseDto
      * @param account the account entity
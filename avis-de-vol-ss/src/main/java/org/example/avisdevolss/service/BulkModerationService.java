@@ -0,0 +1,289 @@
+package org.example.avisdevolss.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.config.CacheConfig;
+import org.example.avisdevolss.dto.BulkModerationResultDto;
+import org.example.avisdevolss.dto.ModerationOutcome;
+import org.example.avisdevolss.dto.ResponseDto;
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.example.avisdevolss.dto.ReviewPublicDto;
+import org.example.avisdevolss.dto.ReviewResponseDto;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.exception.ReviewClaimedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Publishes or rejects reviews, one or many at once.
+ * Each chunk of ids is moderated by one set-based "UPDATE ... WHERE id IN (...) AND status = 'TRAITE'",
+ * one transaction per chunk, instead of a findById and a full-entity save per review. The UPDATE returns
+ * what the rating counters, the review cache and the live feed need, so nothing is read back.
+ * Reviews claimed by another moderator (see ModerationQueueService) are left alone: the lease is checked
+ * by the UPDATE itself, so a claim taken concurrently can never be overridden.
+ */
+@Service
+@Slf4j
+public class BulkModerationService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE review r SET status = :status, claimed_by = NULL, claim_expires_at = NULL FROM flight f " +
+            "WHERE f.id = r.flight_id AND r.id IN (:ids) AND r.status = :pending " +
+            "AND (r.claim_expires_at IS NULL OR r.claim_expires_at < now() OR r.claimed_by = :moderator) " +
+            "RETURNING r.id, r.content, r.notation, f.id AS flight_id, f.flight_number, f.company";
+    // Pour expliquer les avis que l'UPDATE n'a pas modifiés
+    private static final String STATE_SQL = "SELECT id, status FROM review WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReviewService reviewService;
+    private final ResponseService responseService;
+    private final RatingAggregateService ratingAggregateService;
+    private final ResourceVersions resourceVersions;
+    private final ReviewEventFeed reviewEventFeed;
+    private final Cache reviewsCache;
+    private final int chunkSize;
+    private final int maxIds;
+
+    public BulkModerationService(NamedParameterJdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 ReviewService reviewService,
+                                 ResponseService responseService,
+                                 RatingAggregateService ratingAggregateService,
+                                 ResourceVersions resourceVersions,
+                                 ReviewEventFeed reviewEventFeed,
+                                 CacheManager cacheManager,
+                                 @Value("${moderation.bulk.chunk-size:1000}") int chunkSize,
+                                 @Value("${moderation.bulk.max-ids:10000}") int maxIds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.reviewService = reviewService;
+        this.responseService = responseService;
+        this.ratingAggregateService = ratingAggregateService;
+        this.resourceVersions = resourceVersions;
+        this.reviewEventFeed = reviewEventFeed;
+        this.reviewsCache = cacheManager.getCache(CacheConfig.REVIEWS_CACHE);
+        this.chunkSize = chunkSize;
+        this.maxIds = maxIds;
+    }
+
+    /**
+     * Moderate a single review
+     * A pending review goes through the same UPDATE as the bulk path; an already moderated review,
+     * which cannot be claimed, is moderated again by ReviewService.
+     * @param status PUBLIE or REJETE
+     * @param moderatorId the moderator's account id
+     * @return the moderated review
+     * @throws ReviewClaimedException if another moderator holds a live claim on it
+     */
+    public ReviewResponseDto moderate(Integer id, ReviewStatus status, Integer moderatorId) {
+        checkTargetStatus(status);
+        BulkModerationResultDto result = new BulkModerationResultDto();
+        moderateChunk(List.of(id), status, moderatorId, result);
+        switch (result.getOutcomes().get(id)) {
+            case UPDATED:
+                List<ReviewResponseDto> reviews = reviewService.findReviewsByIds(List.of(id));
+                if (reviews.isEmpty()) {
+                    throw new IllegalArgumentException("Review not found with id: " + id);
+                }
+                return reviews.get(0);
+            case CLAIMED:
+                throw new ReviewClaimedException("Review " + id + " is claimed by another moderator");
+            case NOT_PENDING:
+                return status == ReviewStatus.PUBLIE ? reviewService.publishReview(id) : reviewService.rejectReview(id);
+            default:
+                throw new IllegalArgumentException("Review not found with id: " + id);
+        }
+    }
+
+    /**
+     * Moderate the given reviews
+     * @param ids review ids, at most moderation.bulk.max-ids
+     * @param status PUBLIE or REJETE
+     * @param moderatorId the moderator's account id
+     * @return the outcome for each id
+     */
+    public BulkModerationResultDto moderate(List<Integer> ids, ReviewStatus status, Integer moderatorId) {
+        checkTargetStatus(status);
+        if (ids.size() > maxIds) {
+            throw new IllegalArgumentException("At most " + maxIds + " reviews can be moderated at once");
+        }
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        BulkModerationResultDto result = new BulkModerationResultDto();
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            moderateChunk(distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size())), status, moderatorId, result);
+        }
+        log.info("Bulk moderation to {} by {}: {} of {} reviews updated", status, moderatorId, result.getUpdated(), distinctIds.size());
+        return result;
+    }
+
+    /**
+     * Moderate every pending review matching the filter
+     * The matching ids are walked in id order, one chunk at a time, so the filter is never materialized
+     * @param filterDto the same filters as the review search; its status, if any, must be TRAITE
+     * @return the outcome for each matching review, at most moderation.bulk.max-ids of them
+     */
+    public BulkModerationResultDto moderate(ReviewFilterDto filterDto, ReviewStatus status, Integer moderatorId) {
+        checkTargetStatus(status);
+        if (filterDto.getStatus() != null && filterDto.getStatus() != ReviewStatus.TRAITE) {
+            throw new IllegalArgumentException("Only pending reviews can be moderated");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = buildIdQuery(filterDto, params);
+
+        BulkModerationResultDto result = new BulkModerationResultDto();
+        int after = 0;
+        int seen = 0;
+        while (seen < maxIds) {
+            params.addValue("after", after);
+            params.addValue("limit", Math.min(chunkSize, maxIds - seen));
+            List<Integer> ids = jdbcTemplate.queryForList(sql, params, Integer.class);
+            if (ids.isEmpty()) {
+                break;
+            }
+            moderateChunk(ids, status, moderatorId, result);
+            after = ids.get(ids.size() - 1);
+            seen += ids.size();
+        }
+        log.info("Bulk moderation to {} by {} with a filter: {} reviews updated", status, moderatorId, result.getUpdated());
+        return result;
+    }
+
+    private void moderateChunk(List<Integer> ids, ReviewStatus status, Integer moderatorId, BulkModerationResultDto result) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("status", status.name())
+                .addValue("pending", ReviewStatus.TRAITE.name())
+                .addValue("moderator", moderatorId);
+        List<ModeratedReview> moderated = transactionTemplate.execute(tx ->
+                jdbcTemplate.query(UPDATE_SQL, params, (rs, rowNum) -> new ModeratedReview(
+                        rs.getInt("id"), rs.getString("content"), rs.getInt("notation"),
+                        rs.getInt("flight_id"), rs.getString("flight_number"), rs.getString("company"))));
+
+        Set<Integer> updatedIds = new LinkedHashSet<>();
+        for (ModeratedReview review : moderated) {
+            // Avant l'UPDATE, un avis modéré ici était forcément TRAITE
+            ratingAggregateService.changeStatus(review.flightId, review.company, review.notation, ReviewStatus.TRAITE, status);
+            reviewsCache.evict(review.id);
+            updatedIds.add(review.id);
+        }
+        if (!moderated.isEmpty()) {
+            resourceVersions.bump(ResourceVersions.Family.REVIEWS);
+            if (status == ReviewStatus.PUBLIE) {
+                publishEvents(moderated);
+            }
+        }
+
+        Map<Integer, ModerationOutcome> outcomes = outcomesOfSkipped(ids, updatedIds);
+        for (Integer id : ids) {
+            result.getOutcomes().put(id, updatedIds.contains(id) ? ModerationOutcome.UPDATED : outcomes.get(id));
+        }
+        result.setUpdated(result.getUpdated() + updatedIds.size());
+    }
+
+    private Map<Integer, ModerationOutcome> outcomesOfSkipped(List<Integer> ids, Set<Integer> updatedIds) {
+        List<Integer> skipped = new ArrayList<>();
+        for (Integer id : ids) {
+            if (!updatedIds.contains(id)) {
+                skipped.add(id);
+            }
+        }
+        Map<Integer, ModerationOutcome> outcomes = new HashMap<>();
+        if (skipped.isEmpty()) {
+            return outcomes;
+        }
+        for (Integer id : skipped) {
+            outcomes.put(id, ModerationOutcome.NOT_FOUND);
+        }
+        // Encore en attente après l'UPDATE : il est réservé par un autre modérateur
+        jdbcTemplate.query(STATE_SQL, new MapSqlParameterSource("ids", skipped), rs -> {
+            outcomes.put(rs.getInt("id"), ReviewStatus.TRAITE.name().equals(rs.getString("status"))
+                    ? ModerationOutcome.CLAIMED : ModerationOutcome.NOT_PENDING);
+        });
+        return outcomes;
+    }
+
+    private void publishEvents(List<ModeratedReview> moderated) {
+        List<Integer> ids = new ArrayList<>(moderated.size());
+        for (ModeratedReview review : moderated) {
+            ids.add(review.id);
+        }
+        Map<Integer, List<ResponseDto>> responses = responseService.getResponsesByReviewIds(ids);
+        List<ReviewPublicDto> events = new ArrayList<>(moderated.size());
+        for (ModeratedReview review : moderated) {
+            ReviewPublicDto dto = new ReviewPublicDto();
+            dto.setId(review.id);
+            dto.setContent(review.content);
+            dto.setNotation(review.notation);
+            dto.setStatus(ReviewStatus.PUBLIE);
+            dto.setFlightNumber(review.flightNumber);
+            dto.setCompany(review.company);
+            dto.setResponses(responses.getOrDefault(review.id, Collections.emptyList()));
+            events.add(dto);
+        }
+        reviewEventFeed.publishAll(ReviewEventFeed.REVIEW_PUBLISHED, events);
+    }
+
+    private String buildIdQuery(ReviewFilterDto filterDto, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("SELECT r.id FROM review r");
+        if (filterDto.getCompany() != null && !filterDto.getCompany().trim().isEmpty()) {
+            sql.append(" JOIN flight f ON f.id = r.flight_id WHERE ").append(CompanySearch.SQL_CONDITION);
+            params.addValue("companyPattern", CompanySearch.pattern(filterDto.getCompany()));
+        } else {
+            sql.append(" WHERE 1 = 1");
+        }
+
+        if (filterDto.getAccountId() != null) {
+            sql.append(" AND r.account_id = :accountId");
+            params.addValue("accountId", filterDto.getAccountId());
+        }
+
+        if (filterDto.getNotation() != null) {
+            if (filterDto.getNotation() < 1 || filterDto.getNotation() > 5) {
+                throw new IllegalArgumentException("Notation must be between 1 and 5");
+            }
+            sql.append(" AND r.notation = :notation");
+            params.addValue("notation", filterDto.getNotation());
+        }
+
+        sql.append(" AND r.status = :pending AND r.id > :after ORDER BY r.id LIMIT :limit");
+        params.addValue("pending", ReviewStatus.TRAITE.name());
+        return sql.toString();
+    }
+
+    private static void checkTargetStatus(ReviewStatus status) {
+        if (status != ReviewStatus.PUBLIE && status != ReviewStatus.REJETE) {
+            throw new IllegalArgumentException("Reviews can only be published or rejected");
+        }
+    }
+
+    private static final class ModeratedReview {
+        private final int id;
+        private final String content;
+        private final int notation;
+        private final int flightId;
+        private final String flightNumber;
+        private final String company;
+
+        private ModeratedReview(int id, String content, int notation, int flightId, String flightNumber, String company) {
+            this.id = id;
+            this.content = content;
+            this.notation = notation;
+            this.flightId = flightId;
+            this.flightNumber = flightNumber;
+            this.company = company;
+        }
+    }
+}
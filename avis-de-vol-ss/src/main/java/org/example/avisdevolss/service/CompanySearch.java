@@ -0,0 +1,46 @@
+package org.example.avisdevolss.service;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import java.util.Locale;
+
+/**
+ * Case-insensitive substring filter on the flight company: "lower(company) LIKE '%fragment%'",
+ * served by the trigram index idx_flight_company_lower_trgm (db/migration/V3__company_trigram_index.sql)
+ */
+public final class CompanySearch {
+
+    private static final char ESCAPE = '\\';
+
+    /**
+     * Condition for the JDBC queries, on the flight aliased "f", with the pattern bound as :companyPattern
+     */
+    public static final String SQL_CONDITION = "lower(f.company) LIKE :companyPattern ESCAPE '\\'";
+
+    private CompanySearch() {
+    }
+
+    /**
+     * @return the LIKE pattern matching the fragment anywhere, its wildcards taken literally
+     */
+    public static String pattern(String fragment) {
+        String lower = fragment.toLowerCase(Locale.ROOT);
+        StringBuilder pattern = new StringBuilder(lower.length() + 2).append('%');
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                pattern.append(ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    /**
+     * Same condition as SQL_CONDITION, for the JPA specifications
+     */
+    public static Predicate predicate(CriteriaBuilder criteriaBuilder, Expression<String> company, String fragment) {
+        return criteriaBuilder.like(criteriaBuilder.lower(company), pattern(fragment), ESCAPE);
+    }
+}
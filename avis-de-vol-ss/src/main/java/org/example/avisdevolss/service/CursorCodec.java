@@ -0,0 +1,108 @@
+package org.example.avisdevolss.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Encodes the keyset position of a page as an opaque string for the "after" parameter.
+ * Clients must not parse it: only the server knows which sort key it contains.
+ */
+public final class CursorCodec {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final String ID_PREFIX = "id:";
+    private static final String DATE_PREFIX = "date:";
+
+    private CursorCodec() {
+    }
+
+    public static String encodeId(Integer id) {
+        return encode(ID_PREFIX + id);
+    }
+
+    public static Integer decodeId(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = decode(cursor);
+            if (!decoded.startsWith(ID_PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Integer.valueOf(decoded.substring(ID_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Cursor for a (date, id) sort key, the id breaks ties between rows with the same date
+     */
+    public static String encodeDateId(Date date, Integer id) {
+        return encode(DATE_PREFIX + date.getTime() + ":" + id);
+    }
+
+    /**
+     * @return the date and the id stored in the cursor, or null when there is no cursor
+     */
+    public static DateIdPosition decodeDateId(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = decode(cursor);
+            if (!decoded.startsWith(DATE_PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            String[] parts = decoded.substring(DATE_PREFIX.length()).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new DateIdPosition(new Date(Long.parseLong(parts[0])), Integer.valueOf(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Position of a (date, id) cursor: the last row of the previous page
+     */
+    public static final class DateIdPosition {
+        private final Date date;
+        private final Integer id;
+
+        public DateIdPosition(Date date, Integer id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        public Date getDate() {
+            return date;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package org.example.avisdevolss.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.config.CacheConfig;
+import org.example.avisdevolss.dto.FlightDTO;
+import org.example.avisdevolss.dto.FlightImportResultDto;
+import org.example.avisdevolss.entity.Flight;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk flight schedule import.
+ * The file is read record by record and upserted in batches, one
+ * "INSERT ... ON CONFLICT (flight_number) DO UPDATE" statement and one transaction per batch.
+ * The existing flights of the batch are locked and their company read first, so ratings and counters
+ * follow a company change as with FlightService.updateFlight. Ids are drawn by blocks from
+ * flight_seq, as Hibernate does, so there is no existsByFlightNumber/save round trip per flight.
+ * Dates without a time are taken at midnight UTC, in CSV as in NDJSON (Jackson).
+ */
+@Service
+@Slf4j
+public class FlightImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    // Verrouillés avant l'upsert : la compagnie lue est bien celle qu'il remplace
+    private static final String PREVIOUS_SQL =
+            "SELECT flight_number, company FROM flight WHERE flight_number = ANY (?) FOR UPDATE";
+    private static final String UPSERT_SQL =
+            "WITH input AS (" +
+            "  SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::timestamp[])" +
+            "  WITH ORDINALITY AS i(flight_number, company, date, ord)), " +
+            // Un nextval par bloc, dont les identifiants vont de hi - taille + 1 à hi (optimiseur pooled)
+            "blocks AS (SELECT nextval('flight_seq') AS hi FROM generate_series(1, ?)), " +
+            "ids AS (SELECT row_number() OVER () AS ord, hi - ? + n AS id FROM blocks, generate_series(1, ?) n) " +
+            "INSERT INTO flight (id, flight_number, company, date) " +
+            "SELECT ids.id, input.flight_number, input.company, input.date FROM input JOIN ids USING (ord) " +
+            "ON CONFLICT (flight_number) DO UPDATE SET company = EXCLUDED.company, date = EXCLUDED.date " +
+            "RETURNING id, flight_number, company";
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.emptySchema().withSkipFirstDataRow(true);
+    private static final ObjectReader CSV_READER = new CsvMapper()
+            .enable(CsvParser.Feature.WRAP_AS_ARRAY)
+            .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .readerFor(String[].class)
+            .with(CSV_SCHEMA);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final StatisticsService statisticsService;
+    private final RatingAggregateService ratingAggregateService;
+    private final ResourceVersions resourceVersions;
+    private final EntityManagerFactory entityManagerFactory;
+    private final org.springframework.cache.Cache reviewsCache;
+    private final int batchSize;
+
+    public FlightImportService(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               StatisticsService statisticsService,
+                               RatingAggregateService ratingAggregateService,
+                               ResourceVersions resourceVersions,
+                               EntityManagerFactory entityManagerFactory,
+                               CacheManager cacheManager,
+                               @Value("${import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.statisticsService = statisticsService;
+        this.ratingAggregateService = ratingAggregateService;
+        this.resourceVersions = resourceVersions;
+        this.entityManagerFactory = entityManagerFactory;
+        this.reviewsCache = cacheManager.getCache(CacheConfig.REVIEWS_CACHE);
+        this.batchSize = batchSize;
+    }
+
+    public static boolean isSupportedFormat(String format) {
+        return "csv".equals(format) || "ndjson".equals(format);
+    }
+
+    /**
+     * Import a schedule file
+     * @param inputStream CSV with a "flightNumber,company,date" header (date as yyyy-MM-dd, fields quoted
+     *                    as in RFC 4180 when needed), or NDJSON of FlightDTO
+     * @param format "csv" or "ndjson"
+     * @return counts of upserted and rejected records
+     */
+    public FlightImportResultDto importFlights(InputStream inputStream, String format) throws IOException {
+        FlightImportResultDto result = new FlightImportResultDto();
+        // Un même numéro de vol ne peut apparaître qu'une fois par INSERT ... ON CONFLICT
+        Map<String, FlightDTO> batch = new LinkedHashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            if ("csv".equals(format)) {
+                importCsv(reader, batch, result);
+            } else {
+                importNdjson(reader, batch, result);
+            }
+        }
+        flush(batch, result);
+
+        log.info("Flight import finished: {} upserted, {} rejected in {} batches",
+                result.getUpserted(), result.getRejected(), result.getBatches());
+        return result;
+    }
+
+    private void importCsv(Reader reader, Map<String, FlightDTO> batch, FlightImportResultDto result) throws IOException {
+        try (MappingIterator<String[]> records = CSV_READER.readValues(reader)) {
+            while (true) {
+                // Ligne où commence l'enregistrement : un champ entre guillemets peut en couvrir plusieurs
+                long lineNumber = records.getCurrentLocation().getLineNr();
+                String[] fields;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    lineNumber = records.getCurrentLocation().getLineNr();
+                    fields = records.nextValue();
+                } catch (IOException | RuntimeException e) {
+                    // Fichier illisible au-delà (guillemet non fermé) : le reste est ignoré
+                    reject(result, lineNumber, e.getMessage());
+                    return;
+                }
+                accept(() -> parseCsvRecord(fields), lineNumber, batch, result);
+            }
+        }
+    }
+
+    private void importNdjson(BufferedReader reader, Map<String, FlightDTO> batch, FlightImportResultDto result) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String json = line;
+            accept(() -> objectMapper.readValue(json, FlightDTO.class), lineNumber, batch, result);
+        }
+    }
+
+    private void accept(FlightParser parser, long lineNumber, Map<String, FlightDTO> batch, FlightImportResultDto result) {
+        try {
+            FlightDTO flight = parser.parse();
+            validate(flight);
+            batch.put(flight.getFlightNumber(), flight);
+        } catch (IllegalArgumentException | IOException | DateTimeException e) {
+            reject(result, lineNumber, e.getMessage());
+        }
+        if (batch.size() >= batchSize) {
+            flush(batch, result);
+        }
+    }
+
+    private static void reject(FlightImportResultDto result, long lineNumber, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add("Line " + lineNumber + ": " + message);
+        }
+    }
+
+    private void flush(Map<String, FlightDTO> batch, FlightImportResultDto result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int size = batch.size();
+        String[] flightNumbers = new String[size];
+        String[] companies = new String[size];
+        Timestamp[] dates = new Timestamp[size];
+        int i = 0;
+        for (FlightDTO flight : batch.values()) {
+            flightNumbers[i] = flight.getFlightNumber();
+            companies[i] = flight.getCompany();
+            dates[i] = new Timestamp(flight.getDate().getTime());
+            i++;
+        }
+        int blocks = (size + Flight.ID_ALLOCATION_SIZE - 1) / Flight.ID_ALLOCATION_SIZE;
+
+        Map<String, String> previousCompanies = new HashMap<>();
+        List<UpsertedFlight> upserted = transactionTemplate.execute(status -> {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(PREVIOUS_SQL);
+                statement.setArray(1, connection.createArrayOf("varchar", flightNumbers));
+                return statement;
+            }, rs -> {
+                previousCompanies.put(rs.getString("flight_number"), rs.getString("company"));
+            });
+            return jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(UPSERT_SQL);
+                statement.setArray(1, connection.createArrayOf("varchar", flightNumbers));
+                statement.setArray(2, connection.createArrayOf("varchar", companies));
+                statement.setArray(3, connection.createArrayOf("timestamp", dates));
+                statement.setInt(4, blocks);
+                statement.setInt(5, Flight.ID_ALLOCATION_SIZE);
+                statement.setInt(6, Flight.ID_ALLOCATION_SIZE);
+                return statement;
+            }, (rs, rowNum) -> new UpsertedFlight(rs.getInt("id"), rs.getString("flight_number"), rs.getString("company")));
+        });
+
+        // Écriture JDBC : Hibernate ne sait pas que ses caches de vols sont périmés
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Flight.class);
+        cache.evictQueryRegions();
+        boolean updated = false;
+        for (UpsertedFlight flight : upserted) {
+            if (previousCompanies.containsKey(flight.flightNumber)) {
+                String previousCompany = previousCompanies.get(flight.flightNumber);
+                updated = true;
+                ratingAggregateService.changeCompany(flight.id, previousCompany, flight.company);
+                statisticsService.flightCompanyChanged(previousCompany, flight.company);
+            } else {
+                statisticsService.flightCreated(flight.company);
+            }
+        }
+        if (updated) {
+            // Les avis en cache affichent la compagnie de leur vol
+            reviewsCache.clear();
+        }
+        // Un vol mis à jour peut changer de compagnie, visible aussi dans les avis
+        resourceVersions.bump(ResourceVersions.Family.FLIGHTS, ResourceVersions.Family.REVIEWS);
+        result.setUpserted(result.getUpserted() + size);
+        result.setBatches(result.getBatches() + 1);
+        batch.clear();
+    }
+
+    private FlightDTO parseCsvRecord(String[] fields) {
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Expected 3 fields: flightNumber,company,date");
+        }
+        FlightDTO flight = new FlightDTO();
+        flight.setFlightNumber(fields[0]);
+        flight.setCompany(fields[1]);
+        // Stricte : ni 2024-02-30 ni texte en fin de date
+        LocalDate date = LocalDate.parse(fields[2]);
+        // Minuit UTC, comme Jackson pour une date JSON
+        flight.setDate(Date.from(date.atStartOfDay(ZoneOffset.UTC).toInstant()));
+        return flight;
+    }
+
+    private void validate(FlightDTO flight) {
+        if (flight.getFlightNumber() == null || flight.getFlightNumber().isEmpty()) {
+            throw new IllegalArgumentException("Flight number is required");
+        }
+        if (flight.getCompany() == null || flight.getCompany().isEmpty()) {
+            throw new IllegalArgumentException("Company is required");
+        }
+        if (flight.getDate() == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
+    }
+
+    @FunctionalInterface
+    private interface FlightParser {
+        FlightDTO parse() throws IOException;
+    }
+
+    private static final class UpsertedFlight {
+        private final int id;
+        private final String flightNumber;
+        private final String company;
+
+        private UpsertedFlight(int id, String flightNumber, String company) {
+            this.id = id;
+            this.flightNumber = flightNumber;
+            this.company = company;
+        }
+    }
+}
@@ -1,36 +1,54 @@
 package org.example.avisdevolss.service;
 
-import org.example.avisdevolss.controller.FlightController;
+import org.example.avisdevolss.config.CacheConfig;
+import org.example.avisdevolss.dto.CursorPageDto;
 import org.example.avisdevolss.entity.Flight;
 import org.example.avisdevolss.repository.FlightRepository;
 import org.example.avisdevolss.repository.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class FlightService {
 
     private final FlightRepository flightRepository;
     private final ReviewRepository reviewRepository;
+    private final RatingAggregateService ratingAggregateService;
+    private final StatisticsService statisticsService;
+    private final ResourceVersions resourceVersions;
 
     @Autowired
-    public FlightService(FlightRepository flightRepository, ReviewRepository reviewRepository) {
+    public FlightService(FlightRepository flightRepository, ReviewRepository reviewRepository,
+                         RatingAggregateService ratingAggregateService,
+                         StatisticsService statisticsService, ResourceVersions resourceVersions) {
         this.flightRepository = flightRepository;
         this.reviewRepository = reviewRepository;
+        this.ratingAggregateService = ratingAggregateService;
+        this.statisticsService = statisticsService;
+        this.resourceVersions = resourceVersions;
     }
 
     public Flight createFlight(Flight flight) {
         if (flightRepository.existsByFlightNumber(flight.getFlightNumber())) {
             throw new IllegalArgumentException("Flight with this number already exists.");
         }
-        return flightRepository.save(flight);
+        Flight savedFlight = flightRepository.save(flight);
+        statisticsService.flightCreated(savedFlight.getCompany());
+        resourceVersions.bump(ResourceVersions.Family.FLIGHTS);
+        return savedFlight;
     }
 
+    // Les avis en cache affichent le numéro et la compagnie de leur vol
+    @CacheEvict(cacheNames = CacheConfig.REVIEWS_CACHE, allEntries = true)
     public Flight updateFlight(Integer id, Flight flight) {
         Optional<Flight> existingFlight = flightRepository.findById(id);
         if (existingFlight.isEmpty()) {
@@ -43,15 +61,22 @@ public class FlightService {
             throw new IllegalArgumentException("Flight with this number already exists.");
         }
 
+        String previousCompany = flightToUpdate.getCompany();
         flightToUpdate.setFlightNumber(flight.getFlightNumber());
         flightToUpdate.setCompany(flight.getCompany());
         flightToUpdate.setDate(flight.getDate());
 
-        return flightRepository.save(flightToUpdate);
+        Flight updatedFlight = flightRepository.save(flightToUpdate);
+        ratingAggregateService.changeCompany(id, previousCompany, updatedFlight.getCompany());
+        statisticsService.flightCompanyChanged(previousCompany, updatedFlight.getCompany());
+        // Les avis affichent le numéro de vol et la compagnie
+        resourceVersions.bump(ResourceVersions.Family.FLIGHTS, ResourceVersions.Family.REVIEWS);
+        return updatedFlight;
     }
 
     public void deleteFlight(Integer id) {
-        if (!flightRepository.existsById(id)) {
+        Optional<Flight> flight = flightRepository.findById(id);
+        if (flight.isEmpty()) {
             throw new IllegalArgumentException("Flight not found with id: " + id);
         }
 
@@ -60,7 +85,9 @@ public class FlightService {
             throw new IllegalArgumentException("Cannot delete flight with id: " + id + " because it has associated reviews");
         }
 
-        flightRepository.deleteById(id);
+        flightRepository.delete(flight.get());
+        statisticsService.flightDeleted(flight.get().getCompany());
+        resourceVersions.bump(ResourceVersions.Family.FLIGHTS);
     }
 
     public List<Flight> findAllFlights() {
@@ -76,7 +103,7 @@ public class FlightService {
     }
 
     public List<Flight> findByCompany(String company) {
-        return flightRepository.findByCompanyContainingIgnoreCase(company);
+        return flightRepository.findAll(createSpecification(company, null, null));
     }
 
     public List<Flight> findByDate(Date startDate, Date endDate) {
@@ -84,36 +111,41 @@ public class FlightService {
     }
 
     public List<Flight> findFlights(String company, Date startDate, Date endDate) {
-        List<Flight> flights = flightRepository.findAll();
+        return flightRepository.findAll(createSpecification(company, startDate, endDate), Sort.by("id"));
+    }
 
-        // Filter by company if provided
-        if (company != null && !company.trim().isEmpty()) {
-            flights = flights.stream()
-                    .filter(flight -> flight.getCompany().toLowerCase().contains(company.toLowerCase()))
-                    .collect(Collectors.toList());
+    /**
+     * Keyset page of flights
+     * @param sort "id" (default) or "date", the id is always used as tie-breaker
+     * @param after cursor returned as nextCursor by the previous page
+     */
+    public CursorPageDto<Flight> findFlightsPage(String company, Date startDate, Date endDate,
+                                                 String sort, String after, Integer limit) {
+        int pageSize = CursorCodec.normalizeLimit(limit);
+        boolean byDate = "date".equals(sort);
+        if (sort != null && !byDate && !"id".equals(sort)) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
         }
 
-        // Filter by date range if provided
-        if (startDate != null && endDate != null) {
-            flights = flights.stream()
-                    .filter(flight -> {
-                        Date flightDate = flight.getDate();
-                        return !flightDate.before(startDate) && !flightDate.after(endDate);
-                    })
-                    .collect(Collectors.toList());
-        } else if (startDate != null) {
-            // Only start date provided
-            flights = flights.stream()
-                    .filter(flight -> !flight.getDate().before(startDate))
-                    .collect(Collectors.toList());
-        } else if (endDate != null) {
-            // Only end date provided
-            flights = flights.stream()
-                    .filter(flight -> !flight.getDate().after(endDate))
-                    .collect(Collectors.toList());
+        Specification<Flight> spec = createSpecification(company, startDate, endDate);
+        Sort order;
+        if (byDate) {
+            spec = spec.and(afterDateAndId(CursorCodec.decodeDateId(after)));
+            order = Sort.by("date", "id");
+        } else {
+            spec = spec.and(afterId(CursorCodec.decodeId(after)));
+            order = Sort.by("id");
         }
 
-        return flights;
+        // On lit une ligne de plus pour savoir s'il existe une page suivante
+        List<Flight> flights = flightRepository.findAll(spec, order, pageSize + 1);
+        String nextCursor = null;
+        if (flights.size() > pageSize) {
+            flights = flights.subList(0, pageSize);
+            Flight last = flights.get(pageSize - 1);
+            nextCursor = byDate ? CursorCodec.encodeDateId(last.getDate(), last.getId()) : CursorCodec.encodeId(last.getId());
+        }
+        return new CursorPageDto<>(flights, nextCursor);
     }
 
     public List<String> findAllCompanies() {
@@ -121,10 +153,51 @@ public class FlightService {
     }
 
     public long getCountFlights() {
-        return flightRepository.countAllFlights();
+        return statisticsService.getFlightCount();
     }
 
     public long getCountCompany() {
-        return flightRepository.countDistinctCompanies();
+        return statisticsService.getCompanyCount();
+    }
+
+    private Specification<Flight> createSpecification(String company, Date startDate, Date endDate) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (company != null && !company.trim().isEmpty()) {
+                predicates.add(CompanySearch.predicate(criteriaBuilder, root.get("company"), company));
+            }
+
+            if (startDate != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("date"), startDate));
+            }
+
+            if (endDate != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("date"), endDate));
+            }
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private Specification<Flight> afterId(Integer afterId) {
+        return (root, query, criteriaBuilder) -> afterId == null ? null
+                : criteriaBuilder.greaterThan(root.get("id"), afterId);
+    }
+
+    // (date, id) > (afterDate, afterId), dans l'ordre de l'index idx_flight_date_id
+    private Specification<Flight> afterDateAndId(CursorCodec.DateIdPosition after) {
+        return (root, query, criteriaBuilder) -> {
+            if (after == null) {
+                return null;
+            }
+            return criteriaBuilder.or(
+                criteriaBuilder.greaterThan(root.get("date"), after.getDate()),
+                criteriaBuilder.and(
+                    criteriaBuilder.equal(root.get("date"), after.getDate()),
+                    criteriaBuilder.greaterThan(root.get("id"), after.getId())
+                )
+            );
+        };
     }
 }
@@ -0,0 +1,85 @@
+package org.example.avisdevolss.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.dto.ModerationClaimDto;
+import org.example.avisdevolss.dto.ReviewResponseDto;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Moderation work queue.
+ * A moderator claims the next pending (TRAITE) reviews with a lease: claimed rows are taken in a single
+ * "UPDATE ... WHERE id IN (SELECT ... FOR UPDATE SKIP LOCKED)", so concurrent claims never wait on each
+ * other nor get the same review. Until it is published, rejected, released, or its lease expires, a
+ * review is left out of the other moderators' pending searches and their moderation is refused
+ * (see BulkModerationService). Lease times come from the database clock, shared by all instances.
+ */
+@Service
+@Slf4j
+public class ModerationQueueService {
+
+    // Les avis déjà réservés par ce modérateur sont repris et leur bail prolongé
+    private static final String CLAIM_SQL =
+            "UPDATE review SET claimed_by = ?, claim_expires_at = now() + ? * interval '1 millisecond' " +
+            "WHERE id IN (SELECT id FROM review WHERE status = ? " +
+            "AND (claim_expires_at IS NULL OR claim_expires_at < now() OR claimed_by = ?) " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, claim_expires_at";
+    private static final String RELEASE_SQL =
+            "UPDATE review SET claimed_by = NULL, claim_expires_at = NULL WHERE id = ? AND claimed_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReviewService reviewService;
+    private final long leaseMs;
+    private final int maxClaim;
+
+    public ModerationQueueService(JdbcTemplate jdbcTemplate,
+                                  ReviewService reviewService,
+                                  @Value("${moderation.lease-ms:300000}") long leaseMs,
+                                  @Value("${moderation.max-claim:50}") int maxClaim) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reviewService = reviewService;
+        this.leaseMs = leaseMs;
+        this.maxClaim = maxClaim;
+    }
+
+    /**
+     * Claim the next pending reviews
+     * @param moderatorId the moderator's account id
+     * @param limit number of reviews wanted, at most moderation.max-claim
+     * @return the claimed reviews ordered by id, including those the moderator already held, and the lease end
+     */
+    public ModerationClaimDto claim(Integer moderatorId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        List<Integer> ids = new ArrayList<>();
+        List<Timestamp> expirations = new ArrayList<>();
+        jdbcTemplate.query(CLAIM_SQL, rs -> {
+            ids.add(rs.getInt("id"));
+            expirations.add(rs.getTimestamp("claim_expires_at"));
+        }, moderatorId, leaseMs, ReviewStatus.TRAITE.name(), moderatorId, Math.min(limit, maxClaim));
+
+        if (ids.isEmpty()) {
+            return new ModerationClaimDto(List.of(), null);
+        }
+        log.debug("Moderator {} claimed {} reviews", moderatorId, ids.size());
+        List<ReviewResponseDto> reviews = reviewService.findReviewsByIds(ids);
+        return new ModerationClaimDto(reviews, new Date(expirations.get(0).getTime()));
+    }
+
+    /**
+     * Give a claimed review back to the queue
+     * @return false if the moderator did not hold it
+     */
+    public boolean release(Integer reviewId, Integer moderatorId) {
+        return jdbcTemplate.update(RELEASE_SQL, reviewId, moderatorId) > 0;
+    }
+}
@@ -0,0 +1,210 @@
+package org.example.avisdevolss.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.dto.RatingStatsDto;
+import org.example.avisdevolss.dto.StatusRatingDto;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.repository.ReviewRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rating counters per flight and per company, kept up to date by ReviewService.
+ * Reads are O(1); a periodic rebuild from the review table corrects any drift
+ * (writes from other instances) without losing the updates made while it runs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RatingAggregateService {
+
+    private static final int NOTATIONS = 5;
+
+    private final ReviewRepository reviewRepository;
+
+    private final Map<Integer, RatingAggregate> byFlight = new ConcurrentHashMap<>();
+    private final Map<String, RatingAggregate> byCompany = new ConcurrentHashMap<>();
+
+    /**
+     * Count a review that has just been created
+     */
+    public void add(Review review) {
+        apply(review.getFlight().getId(), review.getFlight().getCompany(), review.getStatus(), review.getNotation(), 1);
+    }
+
+    /**
+     * Uncount a review that has just been deleted
+     */
+    public void remove(Review review) {
+        apply(review.getFlight().getId(), review.getFlight().getCompany(), review.getStatus(), review.getNotation(), -1);
+    }
+
+    /**
+     * Move a review from its previous status and notation to its current ones
+     */
+    public void change(Review review, ReviewStatus previousStatus, int previousNotation) {
+        Integer flightId = review.getFlight().getId();
+        String company = review.getFlight().getCompany();
+        apply(flightId, company, previousStatus, previousNotation, -1);
+        apply(flightId, company, review.getStatus(), review.getNotation(), 1);
+    }
+
+    /**
+     * Move a review, known by its flight, company and notation, from one status to another
+     */
+    public void changeStatus(Integer flightId, String company, int notation, ReviewStatus previousStatus, ReviewStatus status) {
+        apply(flightId, company, previousStatus, notation, -1);
+        apply(flightId, company, status, notation, 1);
+    }
+
+    /**
+     * Move the counters of a flight to its new company
+     */
+    public void changeCompany(Integer flightId, String previousCompany, String company) {
+        if (previousCompany == null || previousCompany.equals(company)) {
+            return;
+        }
+        RatingAggregate flightAggregate = byFlight.get(flightId);
+        if (flightAggregate == null) {
+            return;
+        }
+        RatingAggregate previous = byCompany.computeIfAbsent(previousCompany, c -> new RatingAggregate());
+        RatingAggregate next = byCompany.computeIfAbsent(company, c -> new RatingAggregate());
+        for (int i = 0; i < flightAggregate.counts.length(); i++) {
+            long count = flightAggregate.counts.get(i);
+            previous.counts.addAndGet(i, -count);
+            next.counts.addAndGet(i, count);
+        }
+    }
+
+    public RatingStatsDto getFlightStats(Integer flightId) {
+        return toDto(flightId, null, byFlight.get(flightId));
+    }
+
+    public RatingStatsDto getCompanyStats(String company) {
+        return toDto(null, company, byCompany.get(company));
+    }
+
+    /**
+     * Recompute every counter from the review table.
+     * The live counters are not replaced but corrected by the difference between the table and their
+     * value when the rebuild started: an update counted meanwhile stays counted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ratings.rebuild-interval-ms:3600000}",
+               initialDelayString = "${ratings.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        log.info("Rebuilding rating aggregates");
+        // Pris juste avant la lecture : seul ce qui a changé depuis est conservé
+        Map<Integer, long[]> flightsBefore = snapshot(byFlight);
+        Map<String, long[]> companiesBefore = snapshot(byCompany);
+        Map<Integer, RatingAggregate> flights = new HashMap<>();
+        Map<String, RatingAggregate> companies = new HashMap<>();
+
+        for (Object[] row : reviewRepository.countByFlightStatusAndNotation()) {
+            Integer flightId = (Integer) row[0];
+            String company = (String) row[1];
+            ReviewStatus status = (ReviewStatus) row[2];
+            int notation = (Integer) row[3];
+            long count = (Long) row[4];
+            if (status == null || notation < 1 || notation > NOTATIONS) {
+                continue;
+            }
+            int index = RatingAggregate.index(status, notation);
+            flights.computeIfAbsent(flightId, id -> new RatingAggregate()).counts.addAndGet(index, count);
+            if (company != null) {
+                companies.computeIfAbsent(company, c -> new RatingAggregate()).counts.addAndGet(index, count);
+            }
+        }
+
+        correct(byFlight, flightsBefore, flights);
+        correct(byCompany, companiesBefore, companies);
+        log.info("Rating aggregates rebuilt for {} flights and {} companies", flights.size(), companies.size());
+    }
+
+    private static <K> Map<K, long[]> snapshot(Map<K, RatingAggregate> live) {
+        Map<K, long[]> snapshot = new HashMap<>();
+        live.forEach((key, aggregate) -> snapshot.put(key, aggregate.values()));
+        return snapshot;
+    }
+
+    // Ajoute l'écart plutôt que de remplacer les compteurs, comme StatisticsService.reconcile
+    private static <K> void correct(Map<K, RatingAggregate> live, Map<K, long[]> before, Map<K, RatingAggregate> rebuilt) {
+        Set<K> keys = new HashSet<>(before.keySet());
+        keys.addAll(rebuilt.keySet());
+        for (K key : keys) {
+            long[] previous = before.get(key);
+            RatingAggregate counted = rebuilt.get(key);
+            RatingAggregate aggregate = live.computeIfAbsent(key, k -> new RatingAggregate());
+            for (int i = 0; i < aggregate.counts.length(); i++) {
+                long expected = counted == null ? 0 : counted.counts.get(i);
+                long delta = expected - (previous == null ? 0 : previous[i]);
+                if (delta != 0) {
+                    aggregate.counts.addAndGet(i, delta);
+                }
+            }
+        }
+    }
+
+    private void apply(Integer flightId, String company, ReviewStatus status, int notation, long delta) {
+        if (status == null || notation < 1 || notation > NOTATIONS) {
+            return;
+        }
+        int index = RatingAggregate.index(status, notation);
+        byFlight.computeIfAbsent(flightId, id -> new RatingAggregate()).counts.addAndGet(index, delta);
+        if (company != null) {
+            byCompany.computeIfAbsent(company, c -> new RatingAggregate()).counts.addAndGet(index, delta);
+        }
+    }
+
+    private RatingStatsDto toDto(Integer flightId, String company, RatingAggregate aggregate) {
+        Map<ReviewStatus, StatusRatingDto> byStatus = new EnumMap<>(ReviewStatus.class);
+        for (ReviewStatus status : ReviewStatus.values()) {
+            long count = 0;
+            long sum = 0;
+            List<Long> histogram = new ArrayList<>(NOTATIONS);
+            for (int notation = 1; notation <= NOTATIONS; notation++) {
+                long value = aggregate == null ? 0 : aggregate.counts.get(RatingAggregate.index(status, notation));
+                histogram.add(value);
+                count += value;
+                sum += value * notation;
+            }
+            double average = count == 0 ? 0 : (double) sum / count;
+            byStatus.put(status, new StatusRatingDto(count, sum, average, histogram));
+        }
+        return new RatingStatsDto(flightId, company, byStatus);
+    }
+
+    /**
+     * One counter per (status, notation) pair
+     */
+    private static final class RatingAggregate {
+        private final AtomicLongArray counts = new AtomicLongArray(ReviewStatus.values().length * NOTATIONS);
+
+        private long[] values() {
+            long[] values = new long[counts.length()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = counts.get(i);
+            }
+            return values;
+        }
+
+        private static int index(ReviewStatus status, int notation) {
+            return status.ordinal() * NOTATIONS + (notation - 1);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.avisdevolss.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.config.ReadYourWrites;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version per resource family, used as ETag by the read endpoints.
+ * The versions live in the resource_version table, shared by every instance: each write increments
+ * the versions of the families it changes in its own transaction, so a version is never visible
+ * before its data. Each instance keeps the versions in memory, so a client holding the current ETag
+ * can be answered 304 without reading the database; writes of other instances are picked up by a
+ * periodic refresh (resource-versions.refresh-interval-ms), which also publishes Advanced for the
+ * local caches to drop what those writes made stale.
+ * With read replicas, each version is also tied to the primary WAL position of its commit: a response
+ * read from a replica is stamped with the newest version every read source already holds (readEtag),
+ * never with a version whose data the replica has not replayed yet.
+ */
+@Slf4j
+@Component
+public class ResourceVersions {
+
+    public enum Family {
+        FLIGHTS,
+        // Avis et réponses : les listes d'avis embarquent les réponses
+        REVIEWS,
+        ACCOUNTS
+    }
+
+    /**
+     * Published when versions bumped by another instance are picked up, and again once every read source
+     * holds them: what this instance cached of those families since may be stale
+     */
+    public static final class Advanced {
+        private final Set<Family> families;
+
+        Advanced(Set<Family> families) {
+            this.families = families;
+        }
+
+        public Set<Family> getFamilies() {
+            return families;
+        }
+    }
+
+    private static final String INCREMENT_SQL =
+            "UPDATE resource_version SET version = version + 1 WHERE family = ? RETURNING version";
+    private static final String VERSIONS_SQL =
+            "SELECT family, version, (pg_current_wal_insert_lsn() - '0/0'::pg_lsn)::bigint AS lsn FROM resource_version";
+    // Versions en attente de réplication gardées par famille ; au-delà, les plus récentes sont fusionnées
+    private static final int PENDING = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadYourWrites readYourWrites;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicLongArray versions = new AtomicLongArray(Family.values().length);
+    // Version la plus récente dont toute source de lecture a les données
+    private final AtomicLongArray replicated = new AtomicLongArray(Family.values().length);
+    // Par famille, {version, position du commit} pas encore répliqués, par position croissante
+    private final EnumMap<Family, Deque<long[]>> pending = new EnumMap<>(Family.class);
+    // Version répliquée pour laquelle les caches ont été vidés
+    private final AtomicLongArray invalidated = new AtomicLongArray(Family.values().length);
+    private volatile boolean loaded;
+
+    public ResourceVersions(JdbcTemplate jdbcTemplate, ReadYourWrites readYourWrites,
+                            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readYourWrites = readYourWrites;
+        this.eventPublisher = eventPublisher;
+        for (Family family : Family.values()) {
+            pending.put(family, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * @param variant distinguishes representations of the same URL, e.g. admin and public views
+     * @return a strong ETag for the current version of the family
+     */
+    public String etag(Family family, String variant) {
+        if (!loaded) {
+            refresh();
+        }
+        return etag(family, variant, versions.get(family.ordinal()));
+    }
+
+    /**
+     * ETag to stamp a response read from now on: a read-only transaction may run on a replica that has
+     * not replayed the latest version yet, so it gets the newest version it is sure to see.
+     * Without read replicas, this is the current ETag.
+     */
+    public String readEtag(Family family, String variant) {
+        if (!loaded) {
+            refresh();
+        }
+        settle(family, readYourWrites.replicatedLsn());
+        return etag(family, variant, replicated.get(family.ordinal()));
+    }
+
+    /**
+     * Bump the version of the families. Within a transaction, the increment is its last statement
+     * (the row lock is only held until the commit) and the new version is published once committed:
+     * a reader must never see the new version with the old data
+     */
+    public void bump(Family... families) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private Map<Family, Long> incremented;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    incremented = increment(families);
+                }
+
+                @Override
+                public void afterCommit() {
+                    publish(incremented, readYourWrites.commitLsn());
+                }
+            });
+        } else {
+            Map<Family, Long> incremented = increment(families);
+            publish(incremented, readYourWrites.commitLsn());
+        }
+    }
+
+    /**
+     * Pick up the versions bumped by other instances
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${resource-versions.refresh-interval-ms:1000}",
+               initialDelayString = "${resource-versions.refresh-interval-ms:1000}")
+    public void refresh() {
+        Map<Family, Long> current = new EnumMap<>(Family.class);
+        long[] lsn = new long[1];
+        try {
+            jdbcTemplate.query(VERSIONS_SQL, rs -> {
+                current.put(Family.valueOf(rs.getString("family")), rs.getLong("version"));
+                lsn[0] = rs.getLong("lsn");
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not refresh the resource versions: {}", e.getMessage());
+            return;
+        }
+        // Une version en avance sur celle publiée ici vient d'une autre instance
+        Set<Family> stale = EnumSet.noneOf(Family.class);
+        current.forEach((family, version) -> {
+            if (version > versions.get(family.ordinal())) {
+                stale.add(family);
+            }
+        });
+        // Les versions lues sont commitées avant la position lue avec elles
+        publish(current, lsn[0]);
+        boolean wasLoaded = loaded;
+        loaded = true;
+        long replicatedLsn = readYourWrites.replicatedLsn();
+        for (Family family : Family.values()) {
+            settle(family, replicatedLsn);
+            // Un réplica en retard a pu remplir les caches avec les données d'avant : vidés à nouveau
+            long replicatedVersion = replicated.get(family.ordinal());
+            if (readYourWrites.hasReplicas() && invalidated.getAndSet(family.ordinal(), replicatedVersion) < replicatedVersion) {
+                stale.add(family);
+            }
+        }
+        if (wasLoaded && !stale.isEmpty()) {
+            eventPublisher.publishEvent(new Advanced(stale));
+        }
+    }
+
+    private Map<Family, Long> increment(Family... families) {
+        Map<Family, Long> incremented = new EnumMap<>(Family.class);
+        // Toujours dans le même ordre, pour que deux écritures ne s'attendent pas l'une l'autre
+        for (Family family : EnumSet.of(families[0], families)) {
+            incremented.put(family, jdbcTemplate.queryForObject(INCREMENT_SQL, Long.class, family.name()));
+        }
+        return incremented;
+    }
+
+    private void publish(Map<Family, Long> published, long lsn) {
+        published.forEach((family, version) -> {
+            versions.accumulateAndGet(family.ordinal(), version, Math::max);
+            Deque<long[]> waiting = pending.get(family);
+            synchronized (waiting) {
+                long[] last = waiting.peekLast();
+                if (last != null && (last[1] >= lsn || waiting.size() >= PENDING)) {
+                    // Plus récente version à la plus récente position : jamais servie trop tôt
+                    last[0] = Math.max(last[0], version);
+                    last[1] = Math.max(last[1], lsn);
+                } else {
+                    waiting.addLast(new long[] {version, lsn});
+                }
+            }
+        });
+    }
+
+    /**
+     * Mark as replicated the versions committed at or before the position
+     */
+    private void settle(Family family, long replicatedLsn) {
+        Deque<long[]> waiting = pending.get(family);
+        synchronized (waiting) {
+            while (!waiting.isEmpty() && waiting.peekFirst()[1] <= replicatedLsn) {
+                replicated.accumulateAndGet(family.ordinal(), waiting.removeFirst()[0], Math::max);
+            }
+        }
+    }
+
+    private static String etag(Family family, String variant, long version) {
+        return "\"" + family.name().toLowerCase() + "-" + variant + "-" + version + "\"";
+    }
+}
@@ -2,18 +2,27 @@ package org.example.avisdevolss.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.config.CacheConfig;
 import org.example.avisdevolss.dto.ResponseCreateDto;
 import org.example.avisdevolss.dto.ResponseDto;
 import org.example.avisdevolss.entity.Account;
 import org.example.avisdevolss.entity.Response;
 import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
 import org.example.avisdevolss.repository.AccountRepository;
 import org.example.avisdevolss.repository.ResponseRepository;
 import org.example.avisdevolss.repository.ReviewRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -22,9 +31,15 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ResponseService {
 
+    // Taille maximale d'une clause IN, bien en dessous de la limite de paramètres de PostgreSQL
+    private static final int BATCH_SIZE = 1000;
+
     private final ResponseRepository responseRepository;
     private final ReviewRepository reviewRepository;
     private final AccountRepository accountRepository;
+    private final CacheManager cacheManager;
+    private final ResourceVersions resourceVersions;
+    private final ReviewEventFeed reviewEventFeed;
 
     @Transactional
     public ResponseDto createResponse(ResponseCreateDto createDto, Integer userId) {
@@ -45,9 +60,16 @@ public class ResponseService {
         response.setUser(user);
 
         Response savedResponse = responseRepository.save(response);
+        evictReview(review.getId());
+        resourceVersions.bump(ResourceVersions.Family.REVIEWS);
         log.info("Response created successfully with ID: {}", savedResponse.getId());
 
-        return convertToDto(savedResponse);
+        ResponseDto responseDto = convertToDto(savedResponse);
+        // Le flux est public : seules les réponses aux avis publiés y passent
+        if (review.getStatus() == ReviewStatus.PUBLIE) {
+            reviewEventFeed.publish(ReviewEventFeed.RESPONSE_CREATED, responseDto);
+        }
+        return responseDto;
     }
 
     @Transactional(readOnly = true)
@@ -59,6 +81,30 @@ public class ResponseService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Load the responses of several reviews with one query per batch of ids
+     * @param reviewIds the review IDs
+     * @return responses grouped by review ID, reviews without responses are absent from the map
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, List<ResponseDto>> getResponsesByReviewIds(Collection<Integer> reviewIds) {
+        Map<Integer, List<ResponseDto>> responsesByReview = new HashMap<>();
+        if (reviewIds.isEmpty()) {
+            return responsesByReview;
+        }
+        log.debug("Fetching responses for {} reviews", reviewIds.size());
+
+        List<Integer> ids = new ArrayList<>(reviewIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Integer> batch = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            for (Response response : responseRepository.findByReviewIdIn(batch)) {
+                responsesByReview.computeIfAbsent(response.getReview().getId(), id -> new ArrayList<>())
+                        .add(convertToDto(response));
+            }
+        }
+        return responsesByReview;
+    }
+
     @Transactional(readOnly = true)
     public List<ResponseDto> getResponsesByUserId(Integer userId) {
         log.info("Fetching responses by user: {}", userId);
@@ -88,6 +134,8 @@ public class ResponseService {
         }
 
         responseRepository.delete(response);
+        evictReview(response.getReview().getId());
+        resourceVersions.bump(ResourceVersions.Family.REVIEWS);
         log.info("Response {} deleted successfully", id);
     }
 
@@ -105,12 +153,25 @@ public class ResponseService {
 
         response.setContent(updateDto.getContent());
         Response updatedResponse = responseRepository.save(response);
+        evictReview(response.getReview().getId());
+        resourceVersions.bump(ResourceVersions.Family.REVIEWS);
         log.info("Response {} updated successfully", id);
 
         return convertToDto(updatedResponse);
     }
 
-    private ResponseDto convertToDto(Response response) {
+    /**
+     * Drop the cached copy of a review whose responses changed, once the transaction has committed.
+     * Evicted earlier, the review could be read and cached again without the change before the commit.
+     */
+    private void evictReview(Integer reviewId) {
+        Cache cache = cacheManager.getCache(CacheConfig.REVIEWS_CACHE);
+        if (cache != null) {
+            new TransactionAwareCacheDecorator(cache).evict(reviewId);
+        }
+    }
+
+    ResponseDto convertToDto(Response response) {
         return new ResponseDto(
                 response.getId(),
                 response.getContent(),
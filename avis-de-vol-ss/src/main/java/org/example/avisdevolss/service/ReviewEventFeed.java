@@ -0,0 +1,476 @@
+package org.example.avisdevolss.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.exception.ReviewFeedFullException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Server-Sent Events feed of published reviews and new responses.
+ * Events are written to the review_event table in the transaction of the write that produces them, and every
+ * instance polls the table into a fixed-size ring buffer, in the same order: an event is only read once every
+ * transaction that started before it has ended, so a later commit of an earlier event is never skipped.
+ * Event ids come from the table, so a client reconnecting to another instance resumes where it left off.
+ * Each subscriber only holds its position in the ring, and a small pool of sender threads copies the events
+ * it has not seen yet.
+ * A subscriber that falls further behind than the ring is disconnected instead of being buffered;
+ * it resumes with Last-Event-ID while its event is still in the ring, and is told to reload otherwise.
+ * A client that stops reading blocks the socket write: each write runs on a writer thread and the sender
+ * waits for it at most reviews.feed.write-timeout-ms, then disconnects the client and moves on.
+ */
+@Service
+@Slf4j
+public class ReviewEventFeed implements DisposableBean {
+
+    public static final String REVIEW_PUBLISHED = "review-published";
+    public static final String RESPONSE_CREATED = "response-created";
+    // Le client a manqué des événements : il doit recharger la liste avec GET /api/reviews
+    public static final String RESET = "reset";
+    private static final long[] NO_KEY = {0, 0};
+
+    private static final String INSERT_SQL = "INSERT INTO review_event (type, data) VALUES (?, ?)";
+    // Les transactions d'avant l'horizon sont toutes terminées : leurs événements ne changeront plus
+    private static final String POLL_SQL =
+            "WITH horizon AS (SELECT txid_snapshot_xmin(txid_current_snapshot()) AS xmin) "
+            + "SELECT h.xmin, e.txid, e.id, e.type, e.data FROM horizon h LEFT JOIN LATERAL ("
+            + "SELECT txid, id, type, data FROM review_event WHERE (txid, id) > (?, ?) AND txid < h.xmin "
+            + "ORDER BY txid, id LIMIT ?) e ON true ORDER BY e.txid, e.id";
+    // Au démarrage, les derniers événements remplissent le tampon pour les clients qui se reconnectent ici
+    private static final String START_SQL =
+            "SELECT txid, id FROM review_event WHERE txid < txid_snapshot_xmin(txid_current_snapshot()) "
+            + "ORDER BY txid DESC, id DESC OFFSET ? LIMIT 1";
+    private static final String PRUNE_SQL =
+            "DELETE FROM review_event WHERE created_at < now() - ? * interval '1 millisecond'";
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicReferenceArray<Event> ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final ExecutorService writers;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final long writeTimeoutMs;
+    private final long retentionMs;
+    // Dernier événement lu dans la table ; lus et écrits sous le verrou de poll()
+    private long cursorTxid;
+    private long cursorId;
+    private volatile boolean loaded;
+
+    public ReviewEventFeed(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           JdbcTemplate jdbcTemplate,
+                           @Value("${reviews.feed.buffer-size:1024}") int bufferSize,
+                           @Value("${reviews.feed.max-subscribers:10000}") int maxSubscribers,
+                           @Value("${reviews.feed.sender-threads:4}") int senderThreads,
+                           @Value("${reviews.feed.timeout-ms:1800000}") long timeoutMs,
+                           @Value("${reviews.feed.writer-threads:64}") int writerThreads,
+                           @Value("${reviews.feed.write-timeout-ms:5000}") long writeTimeoutMs,
+                           @Value("${reviews.feed.retention-ms:3600000}") long retentionMs) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        int capacity = Integer.highestOneBit(Math.max(bufferSize - 1, 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.writeTimeoutMs = writeTimeoutMs;
+        this.retentionMs = retentionMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "review-feed-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Un rédacteur reste bloqué jusqu'au délai d'écriture de Tomcat : leur nombre est borné, pas de file
+        AtomicInteger writerCount = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(0, writerThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "review-feed-writer-" + writerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("reviews.feed.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publish an event to the subscribers of every instance. Within a transaction, the event is written
+     * with it and only sent once committed; the instances pick it up within reviews.feed.poll-interval-ms
+     * @param type REVIEW_PUBLISHED or RESPONSE_CREATED
+     * @param payload the public DTO, serialized as the event data
+     */
+    public void publish(String type, Object payload) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} event: {}", type, e.getMessage());
+            return;
+        }
+        jdbcTemplate.update(INSERT_SQL, type, data);
+    }
+
+    /**
+     * Publish events of the same type in one batch, in order
+     * @see #publish(String, Object)
+     */
+    public void publishAll(String type, List<?> payloads) {
+        List<Object[]> rows = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            try {
+                rows.add(new Object[] {type, objectMapper.writeValueAsString(payload)});
+            } catch (JsonProcessingException e) {
+                log.error("Could not serialize {} event: {}", type, e.getMessage());
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    /**
+     * Subscribe to the feed
+     * @param lastEventId the Last-Event-ID header of a reconnecting client, or null
+     * @return the emitter to return from the controller
+     * @throws ReviewFeedFullException if the feed has reached its maximum number of subscribers
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            dropped("capacity");
+            throw new ReviewFeedFullException("Review feed is full");
+        }
+
+        if (!loaded) {
+            poll();
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        long current = head.get();
+        long[] lastKey = parseEventId(lastEventId);
+        Long resumeFrom = lastKey != null ? resumePosition(lastKey, current) : null;
+        Subscriber subscriber = new Subscriber(emitter, resumeFrom != null ? resumeFrom : current,
+                resumeFrom != null ? lastKey : NO_KEY);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        if (lastEventId != null && resumeFrom == null) {
+            try {
+                Event newest = current > 0 ? ring.get((int) (current & mask)) : null;
+                emitter.send(SseEmitter.event().id(newest != null ? eventId(newest) : "0-0").name(RESET).data(""));
+            } catch (IOException e) {
+                emitter.complete();
+                return emitter;
+            }
+        }
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Pick up the events committed since the last poll, by this instance or another
+     */
+    @Scheduled(fixedDelayString = "${reviews.feed.poll-interval-ms:200}")
+    public synchronized void poll() {
+        try {
+            if (!loaded) {
+                jdbcTemplate.query(START_SQL, rs -> {
+                    cursorTxid = rs.getLong("txid");
+                    cursorId = rs.getLong("id");
+                }, ring.length());
+                loaded = true;
+            }
+            int read;
+            do {
+                long[] horizon = new long[1];
+                int[] rows = new int[1];
+                jdbcTemplate.query(POLL_SQL, rs -> {
+                    horizon[0] = rs.getLong("xmin");
+                    long id = rs.getLong("id");
+                    if (rs.wasNull()) {
+                        return;
+                    }
+                    cursorTxid = rs.getLong("txid");
+                    cursorId = id;
+                    append(cursorTxid, cursorId, rs.getString("type"), rs.getString("data"));
+                    rows[0]++;
+                }, cursorTxid, cursorId, ring.length());
+                read = rows[0];
+                // Tout ce qui précède l'horizon a été lu : la prochaine lecture part de l'horizon
+                if (read < ring.length() && horizon[0] > cursorTxid) {
+                    cursorTxid = horizon[0];
+                    cursorId = 0;
+                }
+                if (read > 0) {
+                    for (Subscriber subscriber : subscribers) {
+                        schedule(subscriber);
+                    }
+                }
+            } while (read == ring.length());
+        } catch (DataAccessException e) {
+            log.warn("Could not read the review events: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the events older than reviews.feed.retention-ms, which no instance still has to read
+     */
+    @Scheduled(fixedDelayString = "${reviews.feed.prune-interval-ms:60000}",
+               initialDelayString = "${reviews.feed.prune-interval-ms:60000}")
+    public void prune() {
+        try {
+            jdbcTemplate.update(PRUNE_SQL, retentionMs);
+        } catch (DataAccessException e) {
+            log.warn("Could not prune the review events: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Keep idle connections open through proxies, and detect the clients that went away
+     */
+    @Scheduled(fixedRateString = "${reviews.feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat = true;
+            schedule(subscriber);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        senders.shutdownNow();
+        writers.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    // Appelé seulement par poll() : l'ordre des numéros est l'ordre de la table
+    private void append(long txid, long id, String type, String data) {
+        long sequence = head.get() + 1;
+        ring.set((int) (sequence & mask), new Event(sequence, txid, id, type, data));
+        head.set(sequence);
+    }
+
+    /**
+     * @param key the txid and id of the last event the client received
+     * @return the sequence to resume after, or null if the client must reload (unknown id, or event overwritten)
+     */
+    private Long resumePosition(long[] key, long current) {
+        Event newest = current > 0 ? ring.get((int) (current & mask)) : null;
+        if (newest == null || compare(key, newest) >= 0) {
+            // Lu par l'instance précédente mais pas encore ici : les événements jusqu'au sien seront sautés
+            return current;
+        }
+        for (long sequence = current - 1; sequence > 0 && current - sequence < ring.length(); sequence--) {
+            Event event = ring.get((int) (sequence & mask));
+            if (event == null || event.sequence != sequence) {
+                return null;
+            }
+            int order = compare(key, event);
+            if (order >= 0) {
+                return order == 0 ? sequence : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the txid and id of an event id, or null if it is not one
+     */
+    private static long[] parseEventId(String eventId) {
+        if (eventId == null) {
+            return null;
+        }
+        int separator = eventId.indexOf('-');
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            return new long[] {Long.parseLong(eventId.substring(0, separator)), Long.parseLong(eventId.substring(separator + 1))};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int compare(long[] key, Event event) {
+        int order = Long.compare(key[0], event.txid);
+        return order != 0 ? order : Long.compare(key[1], event.id);
+    }
+
+    // Au plus un envoi en cours par abonné : les événements partent dans l'ordre
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                subscriber.sending.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                long next = subscriber.position + 1;
+                if (next > head.get()) {
+                    if (subscriber.heartbeat) {
+                        subscriber.heartbeat = false;
+                        if (!send(subscriber, SseEmitter.event().comment("heartbeat"))) {
+                            return;
+                        }
+                    }
+                    subscriber.sending.set(false);
+                    // Événement publié entre la dernière lecture et la libération : on reprend
+                    if (next > head.get() || !subscriber.sending.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                Event event = ring.get((int) (next & mask));
+                if (event == null || event.sequence != next) {
+                    // Écrasé dans le tampon : l'abonné est trop lent, il se reconnectera avec Last-Event-ID
+                    disconnect(subscriber, "lagging");
+                    return;
+                }
+                if (compare(subscriber.lastKey, event) >= 0) {
+                    // Déjà reçu d'une autre instance avant la reconnexion
+                    subscriber.position = next;
+                    continue;
+                }
+                boolean sent = send(subscriber, SseEmitter.event()
+                        .id(eventId(event))
+                        .name(event.type)
+                        .data(event.data, MediaType.APPLICATION_JSON));
+                if (!sent) {
+                    return;
+                }
+                subscriber.position = next;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client parti, ou émetteur déjà terminé
+            disconnect(subscriber, "error");
+        }
+    }
+
+    /**
+     * Write one event, waiting at most writeTimeoutMs
+     * @return false if the client was too slow and has been disconnected
+     */
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        Future<?> write;
+        try {
+            write = writers.submit(() -> {
+                subscriber.emitter.send(event);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            // Tous les rédacteurs sont déjà bloqués par des clients lents
+            disconnect(subscriber, "slow");
+            return false;
+        }
+        try {
+            write.get(writeTimeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            write.cancel(true);
+            disconnect(subscriber, "slow");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            disconnect(subscriber, "error");
+            return false;
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void disconnect(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            dropped(reason);
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void dropped(String reason) {
+        Counter.builder("reviews.feed.dropped")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // Le même sur toutes les instances
+    private static String eventId(Event event) {
+        return event.txid + "-" + event.id;
+    }
+
+    private static final class Event {
+        private final long sequence;
+        private final long txid;
+        private final long id;
+        private final String type;
+        private final String data;
+
+        private Event(long sequence, long txid, long id, String type, String data) {
+            this.sequence = sequence;
+            this.txid = txid;
+            this.id = id;
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // Dernier événement reçu avant la reconnexion
+        private final long[] lastKey;
+        // Dernier numéro envoyé ; lu et écrit seulement par le thread qui détient "sending"
+        private volatile long position;
+        private volatile boolean heartbeat;
+
+        private Subscriber(SseEmitter emitter, long position, long[] lastKey) {
+            this.emitter = emitter;
+            this.position = position;
+            this.lastKey = lastKey;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.avisdevolss.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streams the review table out of a forward-only JDBC cursor.
+ * Rows are written to the response as they are read, so memory use does not depend on the
+ * number of exported reviews. The PostgreSQL driver only uses a server-side cursor inside a
+ * transaction with a fetch size, hence the read-only transaction around the export.
+ */
+@Service
+@Slf4j
+public class ReviewExportService {
+
+    private static final String[] COLUMNS = {
+            "id", "content", "notation", "status", "flightNumber", "company", "accountId", "accountFirstName", "accountLastName"
+    };
+    private static final int FLUSH_EVERY = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ReviewExportService(DataSource dataSource,
+                               ObjectMapper objectMapper,
+                               @Value("${export.fetch-size:1000}") int fetchSize) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every review matching the filter to the stream
+     * @param filterDto the same filters as the review search
+     * @param format "ndjson" or "csv"
+     * @param outputStream the response body
+     */
+    @Transactional(readOnly = true)
+    public void exportReviews(ReviewFilterDto filterDto, String format, OutputStream outputStream) {
+        boolean csv = "csv".equals(format);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = buildQuery(filterDto, params);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long[] rows = {0};
+        try {
+            if (csv) {
+                writer.write(String.join(",", COLUMNS));
+                writer.write('\n');
+            }
+            jdbcTemplate.query(sql, params, resultSet -> {
+                try {
+                    writeRow(resultSet, csv, writer);
+                    if (++rows[0] % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} reviews as {}", rows[0], csv ? "csv" : "ndjson");
+    }
+
+    public static boolean isSupportedFormat(String format) {
+        return "ndjson".equals(format) || "csv".equals(format);
+    }
+
+    private String buildQuery(ReviewFilterDto filterDto, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT r.id, r.content, r.notation, r.status, f.flight_number, f.company, " +
+                "a.id AS account_id, a.first_name, a.last_name " +
+                "FROM review r JOIN flight f ON f.id = r.flight_id JOIN account a ON a.id = r.account_id WHERE 1 = 1");
+
+        if (filterDto.getCompany() != null && !filterDto.getCompany().trim().isEmpty()) {
+            sql.append(" AND ").append(CompanySearch.SQL_CONDITION);
+            params.addValue("companyPattern", CompanySearch.pattern(filterDto.getCompany()));
+        }
+
+        if (filterDto.getAccountId() != null) {
+            sql.append(" AND r.account_id = :accountId");
+            params.addValue("accountId", filterDto.getAccountId());
+        }
+
+        if (filterDto.getNotation() != null) {
+            if (filterDto.getNotation() < 1 || filterDto.getNotation() > 5) {
+                throw new IllegalArgumentException("Notation must be between 1 and 5");
+            }
+            sql.append(" AND r.notation = :notation");
+            params.addValue("notation", filterDto.getNotation());
+        }
+
+        if (filterDto.getStatus() != null) {
+            sql.append(" AND r.status = :status");
+            params.addValue("status", filterDto.getStatus().name());
+        }
+
+        return sql.append(" ORDER BY r.id").toString();
+    }
+
+    private void writeRow(ResultSet resultSet, boolean csv, Writer writer) throws SQLException, IOException {
+        Object[] values = {
+                resultSet.getInt("id"),
+                resultSet.getString("content"),
+                resultSet.getInt("notation"),
+                resultSet.getString("status"),
+                resultSet.getString("flight_number"),
+                resultSet.getString("company"),
+                resultSet.getInt("account_id"),
+                resultSet.getString("first_name"),
+                resultSet.getString("last_name")
+        };
+
+        if (csv) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvField(values[i]));
+            }
+        } else {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                row.put(COLUMNS[i], values[i]);
+            }
+            writer.write(objectMapper.writeValueAsString(row));
+        }
+        writer.write('\n');
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
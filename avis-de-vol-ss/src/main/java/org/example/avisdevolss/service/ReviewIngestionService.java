@@ -0,0 +1,321 @@
+package org.example.avisdevolss.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.config.ReadYourWrites;
+import org.example.avisdevolss.dto.ReviewCreateDto;
+import org.example.avisdevolss.dto.ReviewSubmissionDto;
+import org.example.avisdevolss.dto.SubmissionStatus;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.exception.IngestionQueueFullException;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.repository.FlightRepository;
+import org.example.avisdevolss.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind review creation.
+ * Submissions are validated, put on a bounded queue and acknowledged at once; a single writer
+ * thread stores them in batches, one transaction and two lookups (flights, accounts) per batch.
+ * When the queue is full, submissions are refused (503) instead of waiting for a connection.
+ * On shutdown, new submissions are refused and every accepted one is written before the DataSource
+ * closes, however long it takes, as long as batches keep completing. Submissions are only held in
+ * memory: a crash loses those still queued (at most queue-capacity).
+ */
+@Service
+@Slf4j
+public class ReviewIngestionService implements SmartLifecycle {
+
+    private final ReviewRepository reviewRepository;
+    private final FlightRepository flightRepository;
+    private final AccountRepository accountRepository;
+    private final RatingAggregateService ratingAggregateService;
+    private final StatisticsService statisticsService;
+    private final ResourceVersions resourceVersions;
+    private final ReadYourWrites readYourWrites;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<Submission> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long shutdownTimeoutMs;
+    // Statut des soumissions récentes, consultable avec l'identifiant de suivi
+    private final Cache<String, ReviewSubmissionDto> submissions;
+
+    private volatile boolean running;
+    private Thread writer;
+    // Soumissions traitées, enregistrées ou non : l'arrêt attend tant que ce nombre avance
+    private final AtomicLong processed = new AtomicLong();
+
+    public ReviewIngestionService(ReviewRepository reviewRepository,
+                                  FlightRepository flightRepository,
+                                  AccountRepository accountRepository,
+                                  RatingAggregateService ratingAggregateService,
+                                  StatisticsService statisticsService,
+                                  ResourceVersions resourceVersions,
+                                  ReadYourWrites readYourWrites,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${reviews.ingestion.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${reviews.ingestion.batch-size:200}") int batchSize,
+                                  @Value("${reviews.ingestion.flush-interval-ms:200}") long flushIntervalMs,
+                                  @Value("${reviews.ingestion.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        this.reviewRepository = reviewRepository;
+        this.flightRepository = flightRepository;
+        this.accountRepository = accountRepository;
+        this.ratingAggregateService = ratingAggregateService;
+        this.statisticsService = statisticsService;
+        this.resourceVersions = resourceVersions;
+        this.readYourWrites = readYourWrites;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.submissions = Caffeine.newBuilder()
+                .maximumSize(queueCapacity * 10L)
+                .expireAfterWrite(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    /**
+     * Queue a review for creation
+     * @param reviewCreateDto the review data
+     * @param accountId the author
+     * @return the submission, with its tracking ID, in PENDING status
+     * @throws IllegalArgumentException if the review is invalid
+     * @throws IngestionQueueFullException if the queue cannot take it
+     */
+    public ReviewSubmissionDto submit(ReviewCreateDto reviewCreateDto, Integer accountId) {
+        if (reviewCreateDto.getFlightId() == null) {
+            throw new IllegalArgumentException("Flight id is required");
+        }
+        if (reviewCreateDto.getNotation() < 1 || reviewCreateDto.getNotation() > 5) {
+            throw new IllegalArgumentException("Notation must be between 1 and 5");
+        }
+        if (!running) {
+            throw new IngestionQueueFullException("Review ingestion is not accepting submissions");
+        }
+
+        ReviewSubmissionDto submission = new ReviewSubmissionDto(UUID.randomUUID().toString(), SubmissionStatus.PENDING, null, null);
+        submissions.put(submission.getTrackingId(), submission);
+        if (!queue.offer(new Submission(submission.getTrackingId(), reviewCreateDto, accountId))) {
+            submissions.invalidate(submission.getTrackingId());
+            throw new IngestionQueueFullException("Review ingestion queue is full");
+        }
+        return submission;
+    }
+
+    public Optional<ReviewSubmissionDto> getSubmission(String trackingId) {
+        return Optional.ofNullable(submissions.getIfPresent(trackingId));
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "review-ingestion-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Refuse new submissions and write every queued one. Gives up only when no batch completes within
+     * the shutdown timeout (database unreachable)
+     */
+    @Override
+    public synchronized void stop() {
+        running = false;
+        try {
+            while (writer.isAlive()) {
+                long before = processed.get();
+                writer.join(shutdownTimeoutMs);
+                if (writer.isAlive()) {
+                    if (processed.get() == before) {
+                        break;
+                    }
+                    log.info("Draining review submissions: {} left", queue.size());
+                }
+            }
+            if (!writer.isAlive()) {
+                // Acceptée juste avant l'arrêt, après la dernière lecture de la file par l'écrivain
+                writeQueued();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("{} review submissions could not be written before shutdown", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server (phase DEFAULT_PHASE - 2048): no submission can arrive while draining
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void writeLoop() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.info("Review ingestion writer stopped");
+    }
+
+    private void writeQueued() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<Submission> batch) {
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            log.error("Review ingestion batch failed", e);
+        } finally {
+            processed.addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void write(List<Submission> batch) {
+        List<Review> saved;
+        try {
+            saved = transactionTemplate.execute(status -> save(batch));
+        } catch (RuntimeException e) {
+            // Un avis invalide ne doit pas faire échouer tout le lot : on réessaie un par un
+            log.warn("Batch of {} reviews failed, retrying one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::writeOne);
+            return;
+        }
+        // Hors du try : le lot est commité, une erreur ici ne doit pas le faire réinsérer
+        afterCommit(batch, saved);
+    }
+
+    private void writeOne(Submission submission) {
+        List<Review> saved;
+        try {
+            saved = transactionTemplate.execute(status -> save(List.of(submission)));
+        } catch (RuntimeException e) {
+            fail(submission, e.getMessage());
+            return;
+        }
+        afterCommit(List.of(submission), saved);
+    }
+
+    /**
+     * @return the saved reviews, with null for submissions referencing a missing flight or account
+     */
+    private List<Review> save(List<Submission> batch) {
+        Set<Integer> flightIds = batch.stream().map(s -> s.review.getFlightId()).collect(Collectors.toSet());
+        Set<Integer> accountIds = batch.stream().map(s -> s.accountId).collect(Collectors.toSet());
+        Map<Integer, Flight> flights = flightRepository.findAllById(flightIds).stream()
+                .collect(Collectors.toMap(Flight::getId, Function.identity()));
+        Map<Integer, Account> accounts = accountRepository.findAllById(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        List<Review> reviews = new ArrayList<>(batch.size());
+        List<Review> toSave = new ArrayList<>();
+        for (Submission submission : batch) {
+            Flight flight = flights.get(submission.review.getFlightId());
+            Account account = accounts.get(submission.accountId);
+            if (flight == null || account == null) {
+                reviews.add(null);
+                continue;
+            }
+            Review review = new Review();
+            review.setContent(submission.review.getContent());
+            review.setNotation(submission.review.getNotation());
+            review.setAccount(account);
+            review.setFlight(flight);
+            review.setStatus(ReviewStatus.TRAITE); // Statut par défaut
+            reviews.add(review);
+            toSave.add(review);
+        }
+        reviewRepository.saveAll(toSave);
+        return reviews;
+    }
+
+    private void afterCommit(List<Submission> batch, List<Review> saved) {
+        resourceVersions.bump(ResourceVersions.Family.REVIEWS);
+        // Avant le statut CREATED : l'auteur qui le voit doit aussi voir son avis
+        readYourWrites.recordWrite(batch.stream().map(s -> s.accountId).collect(Collectors.toSet()));
+        for (int i = 0; i < batch.size(); i++) {
+            Submission submission = batch.get(i);
+            Review review = saved.get(i);
+            if (review == null) {
+                fail(submission, "Flight " + submission.review.getFlightId() + " or account " + submission.accountId + " not found");
+                continue;
+            }
+            submissions.put(submission.trackingId,
+                    new ReviewSubmissionDto(submission.trackingId, SubmissionStatus.CREATED, review.getId(), null));
+            try {
+                ratingAggregateService.add(review);
+                statisticsService.reviewCreated();
+            } catch (RuntimeException e) {
+                // L'avis est enregistré : les compteurs seront corrigés par leur reconstruction périodique
+                log.error("Counters not updated for review {}", review.getId(), e);
+            }
+        }
+    }
+
+    private void fail(Submission submission, String error) {
+        submissions.put(submission.trackingId,
+                new ReviewSubmissionDto(submission.trackingId, SubmissionStatus.FAILED, null, error));
+    }
+
+    private static final class Submission {
+        private final String trackingId;
+        private final ReviewCreateDto review;
+        private final Integer accountId;
+
+        private Submission(String trackingId, ReviewCreateDto review, Integer accountId) {
+            this.trackingId = trackingId;
+            this.review = review;
+            this.accountId = accountId;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.avisdevolss.service;
 
+import org.example.avisdevolss.config.CacheConfig;
+import org.example.avisdevolss.dto.CursorPageDto;
 import org.example.avisdevolss.dto.ResponseDto;
 import org.example.avisdevolss.dto.ReviewCreateDto;
 import org.example.avisdevolss.dto.ReviewFilterDto;
@@ -14,14 +16,21 @@ import org.example.avisdevolss.repository.AccountRepository;
 import org.example.avisdevolss.repository.FlightRepository;
 import org.example.avisdevolss.repository.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,16 +40,28 @@ public class ReviewService {
     private final AccountRepository accountRepository;
     private final FlightRepository flightRepository;
     private final ResponseService responseService;
+    private final RatingAggregateService ratingAggregateService;
+    private final StatisticsService statisticsService;
+    private final ResourceVersions resourceVersions;
+    private final ReviewEventFeed reviewEventFeed;
 
     @Autowired
     public ReviewService(ReviewRepository reviewRepository,
                         AccountRepository accountRepository,
                         FlightRepository flightRepository,
-                        ResponseService responseService) {
+                        ResponseService responseService,
+                        RatingAggregateService ratingAggregateService,
+                        StatisticsService statisticsService,
+                        ResourceVersions resourceVersions,
+                        ReviewEventFeed reviewEventFeed) {
         this.reviewRepository = reviewRepository;
         this.accountRepository = accountRepository;
         this.flightRepository = flightRepository;
         this.responseService = responseService;
+        this.ratingAggregateService = ratingAggregateService;
+        this.statisticsService = statisticsService;
+        this.resourceVersions = resourceVersions;
+        this.reviewEventFeed = reviewEventFeed;
     }
 
     public ReviewResponseDto createReview(ReviewCreateDto reviewCreateDto, Integer accountId) {
@@ -66,16 +87,25 @@ public class ReviewService {
         review.setStatus(ReviewStatus.TRAITE); // Statut par défaut
 
         Review savedReview = reviewRepository.save(review);
+        ratingAggregateService.add(savedReview);
+        statisticsService.reviewCreated();
+        resourceVersions.bump(ResourceVersions.Family.REVIEWS);
         return convertToResponseDto(savedReview);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.REVIEWS_CACHE, key = "#reviewId")
     public void deleteReview(Integer reviewId) {
-        if (!reviewRepository.existsById(reviewId)) {
+        Optional<Review> optionalReview = reviewRepository.findById(reviewId);
+        if (optionalReview.isEmpty()) {
             throw new IllegalArgumentException("Review not found with id: " + reviewId);
         }
-        reviewRepository.deleteById(reviewId);
+        reviewRepository.delete(optionalReview.get());
+        ratingAggregateService.remove(optionalReview.get());
+        statisticsService.reviewDeleted();
+        resourceVersions.bump(ResourceVersions.Family.REVIEWS);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.REVIEWS_CACHE, key = "#reviewId")
     public ReviewResponseDto updateReview(Integer reviewId, ReviewUpdateDto reviewUpdateDto) {
         Optional<Review> optionalReview = reviewRepository.findById(reviewId);
         if (optionalReview.isEmpty()) {
@@ -87,13 +117,17 @@ public class ReviewService {
         }
 
         Review review = optionalReview.get();
+        int previousNotation = review.getNotation();
         review.setContent(reviewUpdateDto.getContent());
         review.setNotation(reviewUpdateDto.getNotation());
 
         Review updatedReview = reviewRepository.save(review);
+        ratingAggregateService.change(updatedReview, updatedReview.getStatus(), previousNotation);
+        resourceVersions.bump(ResourceVersions.Family.REVIEWS);
         return convertToResponseDto(updatedReview);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.REVIEWS_CACHE, key = "#reviewId")
     public ReviewResponseDto publishReview(Integer reviewId) {
         Optional<Review> optionalReview = reviewRepository.findById(reviewId);
         if (optionalReview.isEmpty()) {
@@ -101,12 +135,20 @@ public class ReviewService {
         }
 
         Review review = optionalReview.get();
+        ReviewStatus previousStatus = review.getStatus();
         review.setStatus(ReviewStatus.PUBLIE);
 
         Review publishedReview = reviewRepository.save(review);
-        return convertToResponseDto(publishedReview);
+        ratingAggregateService.change(publishedReview, previousStatus, publishedReview.getNotation());
+        resourceVersions.bump(ResourceVersions.Family.REVIEWS);
+        List<ResponseDto> responses = responseService.getResponsesByReviewId(publishedReview.getId());
+        if (previousStatus != ReviewStatus.PUBLIE) {
+            reviewEventFeed.publish(ReviewEventFeed.REVIEW_PUBLISHED, convertToPublicDto(publishedReview, responses));
+        }
+        return convertToResponseDto(publishedReview, responses);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.REVIEWS_CACHE, key = "#reviewId")
     public ReviewResponseDto rejectReview(Integer reviewId) {
         Optional<Review> optionalReview = reviewRepository.findById(reviewId);
         if (optionalReview.isEmpty()) {
@@ -114,30 +156,75 @@ public class ReviewService {
         }
 
         Review review = optionalReview.get();
+        ReviewStatus previousStatus = review.getStatus();
         review.setStatus(ReviewStatus.REJETE);
 
         Review rejectedReview = reviewRepository.save(review);
+        ratingAggregateService.change(rejectedReview, previousStatus, rejectedReview.getNotation());
+        resourceVersions.bump(ResourceVersions.Family.REVIEWS);
         return convertToResponseDto(rejectedReview);
     }
 
+    @Cacheable(cacheNames = CacheConfig.REVIEWS_CACHE, key = "#reviewId")
+    public ReviewResponseDto getReviewById(Integer reviewId) {
+        Review review = reviewRepository.findWithDetailsById(reviewId)
+                .orElseThrow(() -> new IllegalArgumentException("Review not found with id: " + reviewId));
+
+        List<ResponseDto> responses = review.getResponses().stream()
+                .map(responseService::convertToDto)
+                .collect(Collectors.toList());
+        return convertToResponseDto(review, responses);
+    }
+
     public List<ReviewResponseDto> findReviews(ReviewFilterDto filterDto) {
         Specification<Review> spec = createSpecification(filterDto);
         List<Review> reviews = reviewRepository.findAll(spec);
-        return reviews.stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+        return convertAll(reviews, this::convertToResponseDto);
     }
 
     public List<ReviewPublicDto> findReviewsForPublic(ReviewFilterDto filterDto) {
         Specification<Review> spec = createSpecification(filterDto);
         List<Review> reviews = reviewRepository.findAll(spec);
-        return reviews.stream()
-                .map(this::convertToPublicDto)
-                .collect(Collectors.toList());
+        return convertAll(reviews, this::convertToPublicDto);
+    }
+
+    /**
+     * Load the given reviews with their responses, ordered by id
+     */
+    public List<ReviewResponseDto> findReviewsByIds(List<Integer> reviewIds) {
+        Specification<Review> spec = (root, query, criteriaBuilder) -> root.get("id").in(reviewIds);
+        List<Review> reviews = new ArrayList<>(reviewRepository.findAll(spec));
+        reviews.sort(Comparator.comparing(Review::getId));
+        return convertAll(reviews, this::convertToResponseDto);
+    }
+
+    public CursorPageDto<ReviewResponseDto> findReviewsPage(ReviewFilterDto filterDto, String after, Integer limit) {
+        return findPage(filterDto, after, limit, this::convertToResponseDto);
+    }
+
+    public CursorPageDto<ReviewPublicDto> findReviewsPageForPublic(ReviewFilterDto filterDto, String after, Integer limit) {
+        return findPage(filterDto, after, limit, this::convertToPublicDto);
     }
 
     public long getCountReview() {
-        return reviewRepository.countAllReviews();
+        return statisticsService.getReviewCount();
+    }
+
+    private <T> CursorPageDto<T> findPage(ReviewFilterDto filterDto, String after, Integer limit,
+                                          BiFunction<Review, List<ResponseDto>, T> converter) {
+        int pageSize = CursorCodec.normalizeLimit(limit);
+        Integer afterId = CursorCodec.decodeId(after);
+
+        // On lit une ligne de plus pour savoir s'il existe une page suivante
+        List<Review> reviews = reviewRepository.findAfterId(createSpecification(filterDto), afterId, pageSize + 1);
+        boolean hasMore = reviews.size() > pageSize;
+        if (hasMore) {
+            reviews = reviews.subList(0, pageSize);
+        }
+
+        List<T> items = convertAll(reviews, converter);
+        String nextCursor = hasMore ? CursorCodec.encodeId(reviews.get(reviews.size() - 1).getId()) : null;
+        return new CursorPageDto<>(items, nextCursor);
     }
 
     private Specification<Review> createSpecification(ReviewFilterDto filterDto) {
@@ -146,10 +233,7 @@ public class ReviewService {
 
             if (filterDto.getCompany() != null && !filterDto.getCompany().trim().isEmpty()) {
                 Join<Review, Flight> flightJoin = root.join("flight");
-                predicates.add(criteriaBuilder.like(
-                    criteriaBuilder.lower(flightJoin.get("company")),
-                    "%" + filterDto.getCompany().toLowerCase() + "%"
-                ));
+                predicates.add(CompanySearch.predicate(criteriaBuilder, flightJoin.get("company"), filterDto.getCompany()));
             }
 
             if (filterDto.getAccountId() != null) {
@@ -167,11 +251,38 @@ public class ReviewService {
                 predicates.add(criteriaBuilder.equal(root.get("status"), filterDto.getStatus()));
             }
 
+            if (filterDto.getModeratorId() != null) {
+                // Même condition que le bail dans BulkModerationService : libre, expiré, ou tenu par ce modérateur
+                predicates.add(criteriaBuilder.or(
+                        criteriaBuilder.isNull(root.get("claimExpiresAt")),
+                        criteriaBuilder.lessThan(root.<Date>get("claimExpiresAt"), criteriaBuilder.currentTimestamp()),
+                        criteriaBuilder.equal(root.get("claimedBy"), filterDto.getModeratorId())));
+            }
+
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
 
+    /**
+     * Convert a list of reviews, loading the responses of all of them in a single query
+     */
+    private <T> List<T> convertAll(List<Review> reviews, BiFunction<Review, List<ResponseDto>, T> converter) {
+        List<Integer> reviewIds = reviews.stream()
+                .map(Review::getId)
+                .collect(Collectors.toList());
+        Map<Integer, List<ResponseDto>> responsesByReview = responseService.getResponsesByReviewIds(reviewIds);
+        return reviews.stream()
+                .map(review -> converter.apply(review,
+                        responsesByReview.getOrDefault(review.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
     private ReviewResponseDto convertToResponseDto(Review review) {
+        // Récupérer les réponses associées à cette review
+        return convertToResponseDto(review, responseService.getResponsesByReviewId(review.getId()));
+    }
+
+    private ReviewResponseDto convertToResponseDto(Review review, List<ResponseDto> responses) {
         ReviewResponseDto dto = new ReviewResponseDto();
         dto.setId(review.getId());
         dto.setContent(review.getContent());
@@ -181,15 +292,12 @@ public class ReviewService {
         dto.setAccountLastName(review.getAccount().getLastName());
         dto.setFlightNumber(review.getFlight().getFlightNumber());
         dto.setCompany(review.getFlight().getCompany());
-
-        // Récupérer les réponses associées à cette review
-        List<ResponseDto> responses = responseService.getResponsesByReviewId(review.getId());
         dto.setResponses(responses);
 
         return dto;
     }
 
-    private ReviewPublicDto convertToPublicDto(Review review) {
+    private ReviewPublicDto convertToPublicDto(Review review, List<ResponseDto> responses) {
         ReviewPublicDto dto = new ReviewPublicDto();
         dto.setId(review.getId());
         dto.setContent(review.getContent());
@@ -197,9 +305,6 @@ public class ReviewService {
         dto.setStatus(review.getStatus());
         dto.setFlightNumber(review.getFlight().getFlightNumber());
         dto.setCompany(review.getFlight().getCompany());
-
-        // Récupérer les réponses associées à cette review
-        List<ResponseDto> responses = responseService.getResponsesByReviewId(review.getId());
         dto.setResponses(responses);
 
         return dto;
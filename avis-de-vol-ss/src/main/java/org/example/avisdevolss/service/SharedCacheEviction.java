@@ -0,0 +1,56 @@
+package org.example.avisdevolss.service;
+
+import org.example.avisdevolss.config.CacheConfig;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Set;
+
+/**
+ * Drops the caches of this instance that writes of other instances made stale.
+ * Each instance only evicts its own caches when it writes: the writes of the others are seen through
+ * ResourceVersions, so a cached flight, account or review is stale for at most resource-versions.refresh-interval-ms
+ * (plus the replica lag, with read replicas).
+ */
+@Component
+public class SharedCacheEviction {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager cacheManager;
+
+    public SharedCacheEviction(EntityManagerFactory entityManagerFactory, CacheManager cacheManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = cacheManager;
+    }
+
+    @EventListener
+    public void versionsAdvanced(ResourceVersions.Advanced event) {
+        // Un avis en cache porte aussi sa compagnie, le nom de son auteur et ses réponses : toute famille le concerne
+        org.springframework.cache.Cache reviews = cacheManager.getCache(CacheConfig.REVIEWS_CACHE);
+        if (reviews != null) {
+            reviews.clear();
+        }
+
+        Set<ResourceVersions.Family> families = event.getFamilies();
+        boolean flights = families.contains(ResourceVersions.Family.FLIGHTS);
+        boolean accounts = families.contains(ResourceVersions.Family.ACCOUNTS);
+        if (!flights && !accounts) {
+            return;
+        }
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        if (flights) {
+            cache.evictEntityData(Flight.class);
+        }
+        if (accounts) {
+            cache.evictEntityData(Account.class);
+        }
+        // Les horodatages qui invalident les résultats de requêtes ne voient que les écritures locales
+        cache.evictQueryRegions();
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.avisdevolss.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.repository.FlightRepository;
+import org.example.avisdevolss.repository.ReviewRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory counters behind the public statistics endpoints.
+ * Write paths update them, so reads never use a database connection; a periodic
+ * reconciliation against COUNT queries corrects writes made by other instances or rolled back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatisticsService {
+
+    private final AccountRepository accountRepository;
+    private final FlightRepository flightRepository;
+    private final ReviewRepository reviewRepository;
+
+    private final LongAdder accounts = new LongAdder();
+    private final LongAdder flights = new LongAdder();
+    private final LongAdder reviews = new LongAdder();
+    // Nombre de vols par compagnie : le nombre de compagnies est le nombre d'entrées positives
+    private final Map<String, LongAdder> flightsByCompany = new ConcurrentHashMap<>();
+
+    private volatile boolean initialized;
+
+    public void accountCreated() {
+        accounts.increment();
+    }
+
+    public void accountDeleted() {
+        accounts.decrement();
+    }
+
+    public void flightCreated(String company) {
+        flights.increment();
+        adjustCompany(company, 1);
+    }
+
+    public void flightDeleted(String company) {
+        flights.decrement();
+        adjustCompany(company, -1);
+    }
+
+    public void flightCompanyChanged(String previousCompany, String company) {
+        if (previousCompany != null && previousCompany.equals(company)) {
+            return;
+        }
+        adjustCompany(previousCompany, -1);
+        adjustCompany(company, 1);
+    }
+
+    public void reviewCreated() {
+        reviews.increment();
+    }
+
+    public void reviewDeleted() {
+        reviews.decrement();
+    }
+
+    public long getAccountCount() {
+        ensureInitialized();
+        return accounts.sum();
+    }
+
+    public long getFlightCount() {
+        ensureInitialized();
+        return flights.sum();
+    }
+
+    public long getCompanyCount() {
+        ensureInitialized();
+        return flightsByCompany.values().stream()
+                .filter(count -> count.sum() > 0)
+                .count();
+    }
+
+    public long getReviewCount() {
+        ensureInitialized();
+        return reviews.sum();
+    }
+
+    /**
+     * Align the counters with the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${stats.reconcile-interval-ms:60000}",
+               initialDelayString = "${stats.reconcile-interval-ms:60000}")
+    public synchronized void reconcile() {
+        set(accounts, accountRepository.count());
+        set(flights, flightRepository.countAllFlights());
+        set(reviews, reviewRepository.countAllReviews());
+
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        for (Object[] row : flightRepository.countFlightsByCompany()) {
+            if (row[0] != null) {
+                counts.put((String) row[0], (Long) row[1]);
+            }
+        }
+        flightsByCompany.keySet().retainAll(counts.keySet());
+        counts.forEach((company, count) -> set(companyCounter(company), count));
+
+        initialized = true;
+        log.debug("Statistics reconciled: {} accounts, {} flights, {} companies, {} reviews",
+                accounts.sum(), flights.sum(), counts.size(), reviews.sum());
+    }
+
+    private void ensureInitialized() {
+        if (!initialized) {
+            reconcile();
+        }
+    }
+
+    // COUNT(DISTINCT company) ignore les vols sans compagnie
+    private void adjustCompany(String company, long delta) {
+        if (company != null) {
+            companyCounter(company).add(delta);
+        }
+    }
+
+    private LongAdder companyCounter(String company) {
+        return flightsByCompany.computeIfAbsent(company, c -> new LongAdder());
+    }
+
+    // Ajoute l'écart plutôt que reset() puis add() : un incrément concurrent entre les deux serait perdu
+    private static void set(LongAdder adder, long value) {
+        adder.add(value - adder.sum());
+    }
+}
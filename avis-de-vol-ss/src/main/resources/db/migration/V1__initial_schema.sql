@@ -0,0 +1,49 @@
+-- Schéma tel que le créait Hibernate (ddl-auto=update).
+-- Une base existante sans historique Flyway est marquée à la version 0 (spring.flyway.baseline-version) :
+-- ce script s'y exécute aussi, d'où les "if not exists", et lui ajoute ce que les anciennes versions
+-- de l'application ne créaient pas (colonnes de réservation, index, unicité des numéros de vol).
+create sequence if not exists hibernate_sequence start 1 increment 1;
+
+create table if not exists account (id int4 not null, email varchar(255), first_name varchar(255), last_name varchar(255), password varchar(255), role varchar(255) not null, primary key (id));
+create table if not exists flight (id int4 not null, company varchar(255), date timestamp, flight_number varchar(255), primary key (id));
+create table if not exists response (id int4 not null, content varchar(255) not null, review_id int4 not null, user_id int4 not null, primary key (id));
+create table if not exists review (id int4 not null, claim_expires_at timestamp, claimed_by int4, content varchar(255), notation int4 not null, status varchar(255), account_id int4 not null, flight_id int4 not null, primary key (id));
+
+alter table review add column if not exists claim_expires_at timestamp;
+alter table review add column if not exists claimed_by int4;
+
+create index if not exists idx_flight_date_id on flight (date, id);
+create index if not exists idx_flight_company on flight (company);
+create index if not exists idx_review_status_id on review (status, id);
+
+-- L'unicité n'était vérifiée que par l'application : des doublons restés d'une course empêchent la contrainte.
+-- La migration passe alors avec un index simple, et l'import (ON CONFLICT (flight_number)) échouera tant
+-- que les doublons ne sont pas fusionnés et la contrainte ajoutée à la main.
+do $$
+begin
+    if exists (select 1 from pg_constraint where conname = 'uk_flight_flight_number') then
+        return;
+    end if;
+    if exists (select 1 from flight group by flight_number having count(*) > 1) then
+        raise warning 'Duplicate flight numbers: uk_flight_flight_number not created, flight_number only indexed';
+        create index if not exists idx_flight_flight_number on flight (flight_number);
+    else
+        alter table flight add constraint uk_flight_flight_number unique (flight_number);
+    end if;
+end $$;
+
+do $$
+begin
+    if not exists (select 1 from pg_constraint where conname = 'fk9otefep1uaeu0j643qjsa0u4v') then
+        alter table response add constraint FK9otefep1uaeu0j643qjsa0u4v foreign key (review_id) references review;
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'fkkqgtjn9etd53pxl31ha9uuuca') then
+        alter table response add constraint FKkqgtjn9etd53pxl31ha9uuuca foreign key (user_id) references account;
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'fkbopwpfvcg5qsfrjtt9svofxg1') then
+        alter table review add constraint FKbopwpfvcg5qsfrjtt9svofxg1 foreign key (account_id) references account;
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'fkt3cvnunyfqrqmtyn369ewf0ug') then
+        alter table review add constraint FKt3cvnunyfqrqmtyn369ewf0ug foreign key (flight_id) references flight;
+    end if;
+end $$;
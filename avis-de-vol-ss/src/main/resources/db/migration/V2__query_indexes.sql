@@ -0,0 +1,39 @@
+-- Index des requêtes des repositories (voir RepositoryIndexUsageTest).
+-- PostgreSQL n'indexe pas les clés étrangères : sans eux, chaque recherche par avis, vol ou compte parcourt la table.
+
+-- Avis d'un vol (findByFlightId, countByFlightId, existsByFlightId) ; status et notation rendent
+-- le recalcul des agrégats de notes (countByFlightStatusAndNotation) possible en index-only scan
+create index if not exists idx_review_flight_status_notation on review (flight_id, status, notation);
+-- Avis d'un compte, et filtre par compte de la recherche paginée (ORDER BY id)
+create index if not exists idx_review_account_id on review (account_id, id);
+-- Filtre par note de la recherche paginée (ORDER BY id)
+create index if not exists idx_review_notation_id on review (notation, id);
+
+-- Réponses d'un ou plusieurs avis, dans l'ordre des identifiants (findByReviewId, findByReviewIdIn)
+create index if not exists idx_response_review_id on response (review_id, id);
+-- Réponses d'un utilisateur (findByUserId), et suppression d'un compte
+create index if not exists idx_response_user_id on response (user_id, id);
+
+-- Connexion et inscription (findByEmail, existsByEmail). L'unicité n'était vérifiée que par l'application :
+-- avec des doublons, la contrainte ne peut être créée et un index simple sert les recherches en attendant
+do $$
+begin
+    if exists (select 1 from pg_constraint where conname = 'uk_account_email') then
+        return;
+    end if;
+    if exists (select 1 from account where email is not null group by email having count(*) > 1) then
+        raise warning 'Duplicate account emails: uk_account_email not created, email only indexed';
+        create index if not exists idx_account_email on account (email);
+    else
+        alter table account add constraint uk_account_email unique (email);
+    end if;
+end $$;
+create index if not exists idx_account_role on account (role);
+
+-- Recherches de comptes par fragment de nom, "LIKE '%...%'" : seuls des index trigrammes les servent.
+-- upper() pour ContainingIgnoreCase, la colonne brute pour findByFullNameContaining
+create extension if not exists pg_trgm;
+create index if not exists idx_account_first_name_upper_trgm on account using gin (upper(first_name) gin_trgm_ops);
+create index if not exists idx_account_last_name_upper_trgm on account using gin (upper(last_name) gin_trgm_ops);
+create index if not exists idx_account_first_name_trgm on account using gin (first_name gin_trgm_ops);
+create index if not exists idx_account_last_name_trgm on account using gin (last_name gin_trgm_ops);
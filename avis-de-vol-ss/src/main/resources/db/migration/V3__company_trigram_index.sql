@@ -0,0 +1,4 @@
+-- Filtre par compagnie des recherches de vols et d'avis, "lower(company) LIKE '%...%'" (voir CompanySearch) :
+-- un B-tree ne sert pas un motif qui commence par un joker, l'index trigrammes si
+-- (extension pg_trgm créée par V2)
+create index if not exists idx_flight_company_lower_trgm on flight using gin (lower(company) gin_trgm_ops);
@@ -0,0 +1,4 @@
+-- Versions des familles de ressources servant d'ETag (voir ResourceVersions), partagées par les instances :
+-- incrémentées dans la transaction de chaque écriture, elles ne deviennent visibles qu'avec les données
+create table if not exists resource_version (family varchar(32) not null, version int8 not null, primary key (family));
+insert into resource_version (family, version) values ('FLIGHTS', 0), ('REVIEWS', 0) on conflict do nothing;
@@ -0,0 +1,5 @@
+-- Séquence propre aux vols, par blocs de Flight.ID_ALLOCATION_SIZE (optimiseur pooled de Hibernate) :
+-- un appel pour 50 identifiants, au lieu d'un par vol créé ou importé
+create sequence if not exists flight_seq increment by 50;
+-- nextval rend la borne haute d'un bloc : le premier bloc commence après les vols existants
+select setval('flight_seq', (select coalesce(max(id), 0) from flight) + 50, false);
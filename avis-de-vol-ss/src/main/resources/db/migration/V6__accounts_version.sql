@@ -0,0 +1,2 @@
+-- Version des comptes (voir ResourceVersions) : les autres instances vident leur cache de comptes quand elle avance
+insert into resource_version (family, version) values ('ACCOUNTS', 0) on conflict do nothing;
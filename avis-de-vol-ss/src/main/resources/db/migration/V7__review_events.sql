@@ -0,0 +1,12 @@
+-- Événements du flux en direct (voir ReviewEventFeed), partagés par les instances : insérés dans la transaction
+-- de l'écriture, lus par chaque instance dans l'ordre (txid, id) une fois toutes les transactions antérieures terminées
+create table if not exists review_event (
+    id bigserial not null,
+    txid int8 not null default txid_current(),
+    type varchar(32) not null,
+    data text not null,
+    created_at timestamp not null default now(),
+    primary key (id)
+);
+create index if not exists idx_review_event_txid_id on review_event (txid, id);
+create index if not exists idx_review_event_created_at on review_event (created_at);
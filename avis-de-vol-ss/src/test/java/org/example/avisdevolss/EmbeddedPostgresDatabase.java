@@ -0,0 +1,70 @@
+package org.example.avisdevolss;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * PostgreSQL servers started from the embedded binaries, shared by the tests of the JVM:
+ * the primary, and a second independent instance standing in for a read replica
+ */
+public final class EmbeddedPostgresDatabase {
+
+    private static EmbeddedPostgres postgres;
+    private static EmbeddedPostgres replica;
+
+    private EmbeddedPostgresDatabase() {
+    }
+
+    /**
+     * Register the embedded database as the application datasource, from a @DynamicPropertySource method
+     */
+    public static void register(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", EmbeddedPostgresDatabase::jdbcUrl);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    /**
+     * Register the second instance as the read replica (see ReadWriteRoutingConfig).
+     * It is not replicated and has no application schema: tests only check where statements are sent.
+     */
+    public static void registerReplica(DynamicPropertyRegistry registry) {
+        registry.add("datasource.replica.urls", EmbeddedPostgresDatabase::replicaJdbcUrl);
+    }
+
+    public static synchronized String jdbcUrl() {
+        if (postgres == null) {
+            postgres = start();
+        }
+        return postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+    }
+
+    public static synchronized String replicaJdbcUrl() {
+        if (replica == null) {
+            replica = start();
+        }
+        return replica.getJdbcUrl("postgres", "postgres");
+    }
+
+    private static EmbeddedPostgres start() {
+        EmbeddedPostgres started;
+        try {
+            started = EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to start embedded PostgreSQL", e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> stop(started)));
+        return started;
+    }
+
+    private static void stop(EmbeddedPostgres instance) {
+        try {
+            instance.close();
+        } catch (IOException ignored) {
+            // Arrêt de la JVM, rien à faire
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.avisdevolss;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The migrations also apply to a database created by ddl-auto=update before Flyway, baselined at V0
+ */
+class LegacySchemaMigrationTest {
+
+    // Schéma créé par Hibernate avant les migrations : sans colonnes de réservation, index ni contraintes d'unicité
+    private static final String[] LEGACY_SCHEMA = {
+            "create sequence hibernate_sequence start 1 increment 1",
+            "create table account (id int4 not null, email varchar(255), first_name varchar(255), last_name varchar(255), password varchar(255), role varchar(255) not null, primary key (id))",
+            "create table flight (id int4 not null, company varchar(255), date timestamp, flight_number varchar(255), primary key (id))",
+            "create table response (id int4 not null, content varchar(255) not null, review_id int4 not null, user_id int4 not null, primary key (id))",
+            "create table review (id int4 not null, content varchar(255), notation int4 not null, status varchar(255), account_id int4 not null, flight_id int4 not null, primary key (id))",
+            "alter table response add constraint FK9otefep1uaeu0j643qjsa0u4v foreign key (review_id) references review",
+            "alter table response add constraint FKkqgtjn9etd53pxl31ha9uuuca foreign key (user_id) references account",
+            "alter table review add constraint FKbopwpfvcg5qsfrjtt9svofxg1 foreign key (account_id) references account",
+            "alter table review add constraint FKt3cvnunyfqrqmtyn369ewf0ug foreign key (flight_id) references flight"
+    };
+
+    @Test
+    void upgradesADatabaseCreatedByHibernate() throws SQLException {
+        String url = createDatabase();
+        try (Connection connection = DriverManager.getConnection(url); Statement statement = connection.createStatement()) {
+            for (String ddl : LEGACY_SCHEMA) {
+                statement.execute(ddl);
+            }
+            statement.execute("insert into account (id, email, role) values (1, 'same@avisdevol.com', 'USER'), (2, 'same@avisdevol.com', 'USER')");
+            statement.execute("insert into flight (id, company, flight_number) values (3, 'Air', 'AF1')");
+        }
+
+        Flyway flyway = flyway(url);
+        flyway.migrate();
+        flyway.validate();
+
+        try (Connection connection = DriverManager.getConnection(url)) {
+            assertTrue(exists(connection, "select 1 from information_schema.columns where table_name = 'review' and column_name = 'claimed_by'"));
+            assertTrue(exists(connection, "select 1 from pg_constraint where conname = 'uk_flight_flight_number'"));
+            assertTrue(exists(connection, "select 1 from pg_indexes where indexname = 'idx_review_status_id'"));
+            // Les doublons d'emails n'ont pas fait échouer la migration
+            assertFalse(exists(connection, "select 1 from pg_constraint where conname = 'uk_account_email'"));
+            assertTrue(exists(connection, "select 1 from pg_indexes where indexname = 'idx_account_email'"));
+            assertEquals(1, count(connection, "select count(*) from pg_constraint where conname = 'fkt3cvnunyfqrqmtyn369ewf0ug'"));
+        }
+    }
+
+    @Test
+    void createsTheSchemaOfAnEmptyDatabase() throws SQLException {
+        String url = createDatabase();
+        Flyway flyway = flyway(url);
+        flyway.migrate();
+        flyway.validate();
+
+        try (Connection connection = DriverManager.getConnection(url)) {
+            assertTrue(exists(connection, "select 1 from pg_constraint where conname = 'uk_account_email'"));
+            assertTrue(exists(connection, "select 1 from pg_constraint where conname = 'uk_flight_flight_number'"));
+        }
+    }
+
+    /**
+     * Same settings as spring.flyway.* in application.properties
+     */
+    private static Flyway flyway(String url) {
+        return Flyway.configure()
+                .dataSource(url, "postgres", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load();
+    }
+
+    private static String createDatabase() throws SQLException {
+        String name = "legacy_" + UUID.randomUUID().toString().replace("-", "");
+        String url = EmbeddedPostgresDatabase.jdbcUrl();
+        try (Connection connection = DriverManager.getConnection(url); Statement statement = connection.createStatement()) {
+            statement.execute("create database " + name);
+        }
+        return url.replaceFirst("/postgres\\?", "/" + name + "?");
+    }
+
+    private static boolean exists(Connection connection, String sql) throws SQLException {
+        return count(connection, "select count(*) from (" + sql + ") found") > 0;
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.avisdevolss.config;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.security.JwtTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Actuator answers on the management port without a token, so that Prometheus can scrape it,
+ * and is not served on the API port
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+@AutoConfigureMetrics
+class ActuatorSecurityTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void healthIsPublic() throws Exception {
+        assertEquals(200, get(managementPort, "/actuator/health", null).statusCode());
+    }
+
+    @Test
+    void prometheusIsScrapedOnTheManagementPortWithoutAToken() throws Exception {
+        HttpResponse<String> scrape = get(managementPort, "/actuator/prometheus", null);
+        assertEquals(200, scrape.statusCode());
+        assertTrue(scrape.body().contains("# TYPE jvm_memory_used_bytes"), "Prometheus format expected");
+    }
+
+    @Test
+    void prometheusIsNotServedOnTheApiPort() throws Exception {
+        assertEquals(403, get(port, "/actuator/prometheus", null).statusCode());
+        assertEquals(404, get(port, "/actuator/prometheus", token(Role.ADMIN)).statusCode());
+    }
+
+    private HttpResponse<String> get(int port, String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String token(Role role) {
+        String email = role == Role.ADMIN ? "admin@avisdevol.com" : "user@avisdevol.com";
+        Account account = accountRepository.findByEmail(email).orElseThrow();
+        return jwtTokenProvider.generateToken(account.getEmail(), account.getId(), role);
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.avisdevolss.config;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.exception.AsyncReadRejectedException;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.security.JwtTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads on the dedicated pool: same context as the request thread, bounded queue, abandoned once expired
+ */
+@SpringBootTest(properties = {
+        "async.read.pool-size=1",
+        "async.read.queue-capacity=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AsyncReadExecutorTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private AsyncReadExecutor asyncReadExecutor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void statementsOfThePoolThreadAreCounted() throws Exception {
+        Account admin = accountRepository.findByEmail("admin@avisdevol.com").orElseThrow();
+        String token = jwtTokenProvider.generateToken(admin.getEmail(), admin.getId(), Role.ADMIN);
+
+        MvcResult started = mockMvc.perform(get("/api/reviews").header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String count = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(SqlBudgetFilter.QUERY_COUNT_HEADER);
+        assertTrue(Integer.parseInt(count) > 0, "Statements of the read pool thread not counted");
+    }
+
+    @Test
+    void taskSeesAnOpenEntityManagerButNotTheRecycledRequest() throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        DeferredResult<String> result = asyncReadExecutor.submit("test", () ->
+                (RequestContextHolder.getRequestAttributes() != null) + "/" + TransactionSynchronizationManager.hasResource(entityManagerFactory));
+        assertEquals("false/true", await(result));
+    }
+
+    @Test
+    void abandonedTaskRunsNoMoreStatements() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch refused = new CountDownLatch(1);
+        DeferredResult<Integer> result = asyncReadExecutor.submit("test", () -> {
+            running.countDown();
+            awaitQuietly(start);
+            try {
+                return jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            } catch (AsyncReadRejectedException e) {
+                refused.countDown();
+                throw e;
+            }
+        });
+        assertTrue(running.await(10, TimeUnit.SECONDS), "Task not started");
+        // Réponse déjà envoyée, comme après l'expiration du délai
+        result.setErrorResult(new AsyncReadRejectedException("Read timed out, please retry"));
+        start.countDown();
+        assertTrue(refused.await(10, TimeUnit.SECONDS), "Statement of an abandoned read executed");
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            DeferredResult<Boolean> running = asyncReadExecutor.submit("test", () -> {
+                started.countDown();
+                return awaitQuietly(release);
+            });
+            // Tant que le thread du pool ne l'a pas pris, la tâche occupe la file
+            assertTrue(started.await(10, TimeUnit.SECONDS), "Task not started");
+            DeferredResult<Boolean> queued = asyncReadExecutor.submit("test", () -> true);
+            DeferredResult<Boolean> rejected = asyncReadExecutor.submit("test", () -> true);
+
+            assertInstanceOf(AsyncReadRejectedException.class, rejected.getResult());
+            release.countDown();
+            assertEquals(true, await(running));
+            assertEquals(true, await(queued));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static Object await(DeferredResult<?> result) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        result.setResultHandler(value -> done.countDown());
+        assertTrue(done.await(10, TimeUnit.SECONDS), "No result");
+        return result.getResult();
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.avisdevolss.config;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.service.ResourceVersions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Read-only transactions go to the replica; the reads of a user who just wrote go to the primary until the replica replays the write,
+ * and responses never carry a version the replica has not replayed
+ */
+@SpringBootTest(properties = {
+        // Vérification du retard déclenchée par le test seulement : tout le démarrage se fait sur le primaire
+        "datasource.replica.lag-check-initial-delay-ms=3600000",
+        "datasource.replica.lag-check-interval-ms=3600000"
+})
+class ReadWriteRoutingTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+        EmbeddedPostgresDatabase.registerReplica(registry);
+    }
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    private String primaryPort;
+
+    @BeforeEach
+    void setUp() {
+        primaryPort = serverPort(false);
+        replicaLagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertNotEquals(primaryPort, serverPort(true));
+        assertEquals(primaryPort, serverPort(false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void userReadsTheirOwnWritesFromThePrimaryUntilTheReplicaHasReplayedThem() {
+        actAs(42);
+        write();
+        assertEquals(primaryPort, serverPort(true));
+
+        // Les autres utilisateurs ne dépendent que du retard maximal
+        actAs(43);
+        assertNotEquals(primaryPort, serverPort(true));
+
+        // Le réplica a rejoué l'écriture : les lectures de son auteur y retournent
+        replicaLagMonitor.check();
+        actAs(42);
+        assertNotEquals(primaryPort, serverPort(true));
+    }
+
+    @Test
+    void responsesAreStampedWithTheVersionTheReplicaHasReplayed() {
+        resourceVersions.bump(ResourceVersions.Family.FLIGHTS);
+        String current = resourceVersions.etag(ResourceVersions.Family.FLIGHTS, "list");
+        assertNotEquals(current, resourceVersions.readEtag(ResourceVersions.Family.FLIGHTS, "list"));
+
+        replicaLagMonitor.check();
+        assertEquals(current, resourceVersions.readEtag(ResourceVersions.Family.FLIGHTS, "list"));
+    }
+
+    private static void actAs(Integer userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("userId", userId);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    // Un identifiant de transaction attribué : le commit avance la position du WAL
+    private void write() {
+        new TransactionTemplate(transactionManager).execute(status ->
+                jdbcTemplate.queryForObject("SELECT txid_current()", Long.class));
+    }
+
+    private String serverPort(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT current_setting('port')", String.class));
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.avisdevolss.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A replica is usable once it has replayed the position the reader needs and the position every reader already saw
+ */
+class ReplicaLagMonitorTest {
+
+    // Position NULL : le réplica n'a encore rien rejoué
+    private static final long NOTHING_REPLAYED = -1;
+
+    private final Queue<Long> primaryLsns = new ArrayDeque<>();
+    private final Queue<Long> replayLsns = new ArrayDeque<>();
+    private final ReplicaLagMonitor monitor;
+
+    ReplicaLagMonitorTest() throws SQLException {
+        monitor = new ReplicaLagMonitor(dataSource(primaryLsns, false), List.of(dataSource(replayLsns, true)), 60_000);
+    }
+
+    @Test
+    void replicaIsUsableOnceItReplaysTheRequiredPosition() {
+        assertFalse(monitor.isUsable(0, 0));
+
+        check(100, 100);
+        assertTrue(monitor.isUsable(0, 100));
+        assertFalse(monitor.isUsable(0, 120));
+
+        check(200, 150);
+        assertTrue(monitor.isUsable(0, 150));
+        assertFalse(monitor.isUsable(0, 200));
+
+        check(300, 300);
+        assertTrue(monitor.isUsable(0, 200));
+    }
+
+    @Test
+    void replicatedPositionIsTheLowestUsableReplay() {
+        check(100, 100);
+        assertEquals(100, monitor.replicatedLsn());
+
+        check(200, 150);
+        assertEquals(150, monitor.replicatedLsn());
+    }
+
+    @Test
+    void replicaThatReplayedNothingIsNotUsable() {
+        check(100, NOTHING_REPLAYED);
+        assertFalse(monitor.isUsable(0, 0));
+        // Tout est lu sur le primaire : sa position est acquise
+        assertEquals(100, monitor.replicatedLsn());
+    }
+
+    private void check(long primaryLsn, long replayLsn) {
+        primaryLsns.add(primaryLsn);
+        replayLsns.add(replayLsn);
+        monitor.check();
+    }
+
+    /**
+     * @param lsns positions returned by successive queries, NOTHING_REPLAYED for NULL
+     */
+    private static DataSource dataSource(Queue<Long> lsns, boolean replica) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenAnswer(invocation -> {
+            long lsn = lsns.remove();
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.next()).thenReturn(true);
+            when(resultSet.getLong(replica ? 2 : 1)).thenReturn(Math.max(lsn, 0));
+            when(resultSet.getBoolean(1)).thenReturn(true);
+            when(resultSet.wasNull()).thenReturn(lsn < 0);
+            return resultSet;
+        });
+        return dataSource;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.avisdevolss.config;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Assertions on the number of SQL statements, to catch N+1 queries in tests
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    /**
+     * MockMvc matcher on the X-Query-Count header set by SqlBudgetFilter, e.g.
+     * mockMvc.perform(get("/api/reviews")).andExpect(statementsAtMost(2))
+     */
+    public static ResultMatcher statementsAtMost(int max) {
+        return result -> {
+            String header = result.getResponse().getHeader(SqlBudgetFilter.QUERY_COUNT_HEADER);
+            assertNotNull(header, "No " + SqlBudgetFilter.QUERY_COUNT_HEADER + " header on the response");
+            int statements = Integer.parseInt(header);
+            assertTrue(statements <= max, () -> statements + " SQL statements executed, at most " + max + " expected");
+        };
+    }
+
+    /**
+     * Run an action on the current thread and fail if it executes more than max statements
+     * @return the action result
+     */
+    public static <T> T assertStatementsAtMost(SqlStatementCounter counter, int max, Supplier<T> action) {
+        counter.begin();
+        T result;
+        SqlStatementCounter.Counts counts;
+        try {
+            result = action.get();
+        } finally {
+            counts = counter.end();
+        }
+        int statements = counts.getStatements();
+        assertTrue(statements <= max, () -> statements + " SQL statements executed, at most " + max + " expected");
+        return result;
+    }
+}
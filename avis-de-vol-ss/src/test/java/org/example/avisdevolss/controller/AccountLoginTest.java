@@ -0,0 +1,125 @@
+package org.example.avisdevolss.controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Login checks the password after the account lookup, and account writes hash it before their transaction:
+ * no database connection is held while hashing
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AccountLoginTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AccountService accountService;
+
+    @SpyBean
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void hashesWithoutHoldingAConnection() throws Exception {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        List<Integer> activeWhileHashing = new ArrayList<>();
+        doAnswer(invocation -> {
+            activeWhileHashing.add(pool.getHikariPoolMXBean().getActiveConnections());
+            return invocation.callRealMethod();
+        }).when(passwordEncoder).matches(any(), anyString());
+
+        mockMvc.perform(post("/api/accounts/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"admin@avisdevol.com\",\"password\":\"admin123\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(0), activeWhileHashing);
+    }
+
+    @Test
+    void concurrentUpdatesToTheSameEmailLetOnlyOneThrough() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Account first = accountService.createAccount(account("first-" + suffix + "@avisdevol.com"));
+        Account second = accountService.createAccount(account("second-" + suffix + "@avisdevol.com"));
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        List<Integer> activeWhileHashing = new ArrayList<>();
+        // Les deux mises à jour vérifient l'email après le hachage, au même moment
+        CyclicBarrier hashed = new CyclicBarrier(2);
+        doAnswer(invocation -> {
+            synchronized (activeWhileHashing) {
+                activeWhileHashing.add(pool.getHikariPoolMXBean().getActiveConnections());
+            }
+            Object encoded = invocation.callRealMethod();
+            hashed.await(10, TimeUnit.SECONDS);
+            return encoded;
+        }).when(passwordEncoder).encode(any());
+
+        String taken = "taken-" + suffix + "@avisdevol.com";
+        CompletableFuture<Account> updateFirst = CompletableFuture.supplyAsync(() -> accountService.updateAccount(first.getId(), account(taken)));
+        CompletableFuture<Account> updateSecond = CompletableFuture.supplyAsync(() -> accountService.updateAccount(second.getId(), account(taken)));
+
+        List<Throwable> refused = new ArrayList<>();
+        for (CompletableFuture<Account> update : List.of(updateFirst, updateSecond)) {
+            try {
+                assertEquals(taken, update.get(30, TimeUnit.SECONDS).getEmail());
+            } catch (ExecutionException e) {
+                refused.add(e.getCause());
+            }
+        }
+        assertEquals(1, refused.size());
+        assertInstanceOf(IllegalArgumentException.class, refused.get(0));
+        assertEquals(List.of(0, 0), activeWhileHashing);
+
+        accountService.deleteAccount(first.getId());
+        accountService.deleteAccount(second.getId());
+    }
+
+    private static Account account(String email) {
+        Account account = new Account();
+        account.setFirstName("Concurrent");
+        account.setLastName("Update");
+        account.setEmail(email);
+        account.setPassword("secret123");
+        account.setRole(Role.USER);
+        return account;
+    }
+}
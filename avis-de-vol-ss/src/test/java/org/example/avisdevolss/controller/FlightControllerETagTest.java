@@ -0,0 +1,127 @@
+package org.example.avisdevolss.controller;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.security.JwtTokenProvider;
+import org.example.avisdevolss.service.ResourceVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.example.avisdevolss.config.SqlStatementAssertions.statementsAtMost;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GET on the flight listing: 304 without touching the database until a flight is written,
+ * by this instance or another one
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FlightControllerETagTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String adminToken;
+
+    @BeforeEach
+    void token() {
+        Account admin = accountRepository.findByEmail("admin@avisdevol.com").orElseThrow();
+        adminToken = jwtTokenProvider.generateToken(admin.getEmail(), admin.getId(), Role.ADMIN);
+    }
+
+    @Test
+    void notModifiedUntilAFlightIsWritten() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/flights").header("Authorization", "Bearer " + adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String etag = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/flights")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(statementsAtMost(0));
+
+        mockMvc.perform(post("/api/flights")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"flightNumber\":\"ET001\",\"company\":\"Etag Airlines\",\"date\":\"2030-01-01T00:00:00.000+00:00\"}"))
+                .andExpect(status().isCreated());
+
+        started = mockMvc.perform(get("/api/flights")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String newEtag = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+    }
+
+    @Test
+    void modifiedOnceAWriteOfAnotherInstanceIsRefreshed() throws Exception {
+        String etag = flightsEtag();
+
+        // Écriture d'une autre instance : seule la table des versions le signale à celle-ci
+        jdbcTemplate.update("UPDATE resource_version SET version = version + 1 WHERE family = 'FLIGHTS'");
+        mockMvc.perform(get("/api/flights")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        resourceVersions.refresh();
+        assertNotEquals(etag, flightsEtag());
+    }
+
+    private String flightsEtag() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/flights").header("Authorization", "Bearer " + adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
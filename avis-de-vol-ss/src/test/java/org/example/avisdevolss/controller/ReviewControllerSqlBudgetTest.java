@@ -0,0 +1,169 @@
+package org.example.avisdevolss.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.config.SqlBudgetFilter;
+import org.example.avisdevolss.config.SqlStatementCounter;
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Response;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.repository.FlightRepository;
+import org.example.avisdevolss.repository.ResponseRepository;
+import org.example.avisdevolss.repository.ReviewRepository;
+import org.example.avisdevolss.security.JwtTokenProvider;
+import org.example.avisdevolss.service.ReviewService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.example.avisdevolss.config.SqlStatementAssertions.assertStatementsAtMost;
+import static org.example.avisdevolss.config.SqlStatementAssertions.statementsAtMost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listing reviews must not issue one query per review (responses, account, flight); the per-request metrics
+ * report the same statements as the budget
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReviewControllerSqlBudgetTest {
+
+    private static final int REVIEWS = 20;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ResponseRepository responseRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String adminToken;
+
+    @BeforeEach
+    void seed() {
+        Account admin = accountRepository.findByEmail("admin@avisdevol.com").orElseThrow();
+        adminToken = jwtTokenProvider.generateToken(admin.getEmail(), admin.getId(), Role.ADMIN);
+        if (reviewRepository.count() >= REVIEWS) {
+            return;
+        }
+
+        List<Flight> flights = flightRepository.findAll();
+        for (int i = 0; i < REVIEWS; i++) {
+            Review review = new Review();
+            review.setContent("Avis " + i);
+            review.setNotation(1 + i % 5);
+            review.setStatus(ReviewStatus.PUBLIE);
+            review.setAccount(admin);
+            review.setFlight(flights.get(i % flights.size()));
+            reviewRepository.save(review);
+
+            for (int j = 0; j < 2; j++) {
+                Response response = new Response();
+                response.setContent("Réponse " + j);
+                response.setReview(review);
+                response.setUser(admin);
+                responseRepository.save(response);
+            }
+        }
+    }
+
+    @Test
+    void listReviewsWithoutNPlusOne() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/reviews").header("Authorization", "Bearer " + adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(2));
+    }
+
+    @Test
+    void listReviewsPageWithoutNPlusOne() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/reviews?limit=10").header("Authorization", "Bearer " + adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(2));
+    }
+
+    @Test
+    void convertReviewsWithoutNPlusOne() {
+        int reviews = assertStatementsAtMost(sqlStatementCounter, 2,
+                () -> reviewService.findReviews(new ReviewFilterDto())).size();
+        assertEquals(REVIEWS, reviews);
+    }
+
+    @Test
+    void requestMetricsUseTheBudgetCounts() throws Exception {
+        double[] statementsBefore = summary("hibernate.request.statements");
+        double[] loadsBefore = summary("hibernate.request.entity.loads");
+
+        MvcResult started = mockMvc.perform(get("/api/reviews").header("Authorization", "Bearer " + adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult finished = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        double[] statements = summary("hibernate.request.statements");
+        assertEquals(statementsBefore[0] + 1, statements[0]);
+        assertEquals(Double.parseDouble(finished.getResponse().getHeader(SqlBudgetFilter.QUERY_COUNT_HEADER)),
+                statements[1] - statementsBefore[1]);
+        assertTrue(summary("hibernate.request.entity.loads")[1] - loadsBefore[1] >= REVIEWS);
+    }
+
+    /**
+     * @return {count, total} of the summary for GET /api/reviews
+     */
+    private double[] summary(String name) {
+        DistributionSummary summary = meterRegistry.find(name).tag("uri", "/api/reviews").summary();
+        return summary != null ? new double[] {summary.count(), summary.totalAmount()} : new double[2];
+    }
+}
@@ -0,0 +1,306 @@
+package org.example.avisdevolss.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.repository.FlightRepository;
+import org.example.avisdevolss.repository.ReviewRepository;
+import org.example.avisdevolss.security.JwtTokenProvider;
+import org.example.avisdevolss.service.ReviewEventFeed;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Live review feed over HTTP: delivery on publication, resumption with Last-Event-ID, on this instance or another,
+ * reset when too far behind, disconnection of a client that stops reading
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"reviews.feed.buffer-size=4", "reviews.feed.write-timeout-ms=500"})
+class ReviewFeedTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ReviewEventFeed reviewEventFeed;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private String adminToken;
+
+    @BeforeEach
+    void token() {
+        Account admin = accountRepository.findByEmail("admin@avisdevol.com").orElseThrow();
+        adminToken = jwtTokenProvider.generateToken(admin.getEmail(), admin.getId(), Role.ADMIN);
+    }
+
+    @Test
+    void publishedReviewIsPushedToSubscribers() throws Exception {
+        Review review = pendingReview();
+        BlockingQueue<String> lines = subscribe(null);
+
+        HttpResponse<String> published = client.send(HttpRequest.newBuilder(uri("/api/reviews/" + review.getId() + "/publish"))
+                .header("Authorization", "Bearer " + adminToken)
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, published.statusCode());
+
+        Map<String, String> event = nextEvent(lines);
+        assertEquals(ReviewEventFeed.REVIEW_PUBLISHED, event.get("event"));
+        assertTrue(event.get("data").contains("\"id\":" + review.getId()));
+    }
+
+    @Test
+    void reconnectingClientGetsTheEventsItMissed() throws Exception {
+        BlockingQueue<String> lines = subscribe(null);
+        reviewEventFeed.publish(ReviewEventFeed.RESPONSE_CREATED, Map.of("id", 1));
+        String lastEventId = nextEvent(lines).get("id");
+        assertNotNull(lastEventId);
+
+        reviewEventFeed.publish(ReviewEventFeed.RESPONSE_CREATED, Map.of("id", 2));
+        reviewEventFeed.publish(ReviewEventFeed.RESPONSE_CREATED, Map.of("id", 3));
+
+        BlockingQueue<String> resumed = subscribe(lastEventId);
+        assertEquals("{\"id\":2}", nextEvent(resumed).get("data"));
+        assertEquals("{\"id\":3}", nextEvent(resumed).get("data"));
+    }
+
+    @Test
+    void eventsAreSharedWithAnotherInstanceWhereClientsResume() throws Exception {
+        // Une seconde instance : même base, son propre tampon
+        ReviewEventFeed other = new ReviewEventFeed(objectMapper, new SimpleMeterRegistry(), jdbcTemplate,
+                4, 10, 1, 60_000, 2, 500, 3_600_000);
+        try {
+            BlockingQueue<String> lines = subscribe(null);
+            other.publish(ReviewEventFeed.RESPONSE_CREATED, Map.of("id", 21));
+            String lastEventId = nextEvent(lines).get("id");
+            reviewEventFeed.publish(ReviewEventFeed.RESPONSE_CREATED, Map.of("id", 22));
+            reviewEventFeed.publish(ReviewEventFeed.RESPONSE_CREATED, Map.of("id", 23));
+            assertEquals("{\"id\":22}", nextEvent(lines).get("data"));
+            assertEquals("{\"id\":23}", nextEvent(lines).get("data"));
+
+            // Reconnexion à l'autre instance avec l'identifiant donné par celle-ci
+            MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StreamEndpoint(other)).build();
+            MvcResult result = mockMvc.perform(get("/stream").header("Last-Event-ID", lastEventId))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            waitFor(() -> {
+                other.poll();
+                return content(result).contains("{\"id\":23}");
+            });
+            String received = content(result);
+            assertFalse(received.contains(ReviewEventFeed.RESET), received);
+            assertFalse(received.contains("{\"id\":21}"), received);
+            assertTrue(received.indexOf("{\"id\":22}") >= 0 && received.indexOf("{\"id\":22}") < received.indexOf("{\"id\":23}"), received);
+        } finally {
+            other.destroy();
+        }
+    }
+
+    @Test
+    void clientTooFarBehindIsToldToReload() throws Exception {
+        BlockingQueue<String> lines = subscribe(null);
+        reviewEventFeed.publish(ReviewEventFeed.RESPONSE_CREATED, Map.of("id", 1));
+        String lastEventId = nextEvent(lines).get("id");
+
+        // Plus d'événements que le tampon n'en garde
+        for (int i = 0; i < 5; i++) {
+            reviewEventFeed.publish(ReviewEventFeed.RESPONSE_CREATED, Map.of("id", 10 + i));
+        }
+        // Lus dans la table avant la reconnexion
+        reviewEventFeed.poll();
+
+        assertEquals(ReviewEventFeed.RESET, nextEvent(subscribe(lastEventId)).get("event"));
+        assertEquals(ReviewEventFeed.RESET, nextEvent(subscribe("unknown-1")).get("event"));
+    }
+
+    @Test
+    void clientThatStopsReadingIsDisconnected() throws Exception {
+        // Les abonnés des autres tests peuvent être encore ouverts, et déconnectés par les mêmes événements
+        int subscribed = reviewEventFeed.getSubscriberCount();
+        double slowBefore = slowDrops();
+        try (Socket stalled = new Socket()) {
+            stalled.setReceiveBufferSize(4096);
+            stalled.connect(new InetSocketAddress("localhost", port));
+            stalled.getOutputStream().write(("GET /api/reviews/stream HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Authorization: Bearer " + adminToken + "\r\nAccept: text/event-stream\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            waitFor(() -> reviewEventFeed.getSubscriberCount() > subscribed);
+
+            // Le client ne lit rien : les écritures finissent par bloquer sur le socket
+            String large = "x".repeat(1 << 20);
+            // Un par un, pour que l'envoi bloque avant que le tampon ne soit écrasé
+            for (int i = 0; i < 16; i++) {
+                reviewEventFeed.publish(ReviewEventFeed.RESPONSE_CREATED, Map.of("id", i, "content", large));
+                reviewEventFeed.poll();
+                Thread.sleep(50);
+            }
+
+            waitFor(() -> slowDrops() > slowBefore && reviewEventFeed.getSubscriberCount() <= subscribed);
+        }
+    }
+
+    private static String content(MvcResult result) {
+        try {
+            return result.getResponse().getContentAsString();
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double slowDrops() {
+        Counter slow = meterRegistry.find("reviews.feed.dropped").tag("reason", "slow").counter();
+        return slow != null ? slow.count() : 0;
+    }
+
+    private Review pendingReview() {
+        Account admin = accountRepository.findByEmail("admin@avisdevol.com").orElseThrow();
+        Flight flight = flightRepository.findAll().get(0);
+        Review review = new Review();
+        review.setContent("Avis en direct");
+        review.setNotation(4);
+        review.setStatus(ReviewStatus.TRAITE);
+        review.setAccount(admin);
+        review.setFlight(flight);
+        return reviewRepository.save(review);
+    }
+
+    /**
+     * Open the stream and read its lines on a background thread
+     */
+    private BlockingQueue<String> subscribe(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/api/reviews/stream"))
+                .header("Authorization", "Bearer " + adminToken)
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = client.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> response.body().forEach(lines::add));
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    /**
+     * @return the fields of the next event, up to the blank line that ends it
+     */
+    private static Map<String, String> nextEvent(BlockingQueue<String> lines) throws InterruptedException {
+        Map<String, String> fields = new HashMap<>();
+        while (true) {
+            String line = lines.poll(10, TimeUnit.SECONDS);
+            assertNotNull(line, "No event received");
+            if (line.isEmpty()) {
+                if (!fields.isEmpty()) {
+                    return fields;
+                }
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                fields.put(line.substring(0, colon), line.substring(colon + 1));
+            }
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition not reached in time");
+            Thread.sleep(20);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    /**
+     * The stream endpoint of the second instance, without its security
+     */
+    @RestController
+    static class StreamEndpoint {
+        private final ReviewEventFeed feed;
+
+        StreamEndpoint(ReviewEventFeed feed) {
+            this.feed = feed;
+        }
+
+        @GetMapping("/stream")
+        SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+            return feed.subscribe(lastEventId);
+        }
+    }
+}
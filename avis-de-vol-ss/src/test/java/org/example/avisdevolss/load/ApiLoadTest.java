@@ -0,0 +1,203 @@
+package org.example.avisdevolss.load;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.security.JwtTokenProvider;
+import org.example.avisdevolss.service.RatingAggregateService;
+import org.example.avisdevolss.service.StatisticsService;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HTTP load test of the main endpoints, run with: mvn test -Pload-test
+ * The application runs against an embedded PostgreSQL seeded by {@link LoadTestDataset}; every endpoint is
+ * driven at its own fixed rate (-Dload.rate.&lt;scenario&gt;=...) for load.duration-seconds after
+ * load.warmup-seconds. Latency percentiles are printed, and full histograms written to target/load-test.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ApiLoadTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration-seconds", 60));
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(Long.getLong("load.request-timeout-seconds", 10));
+    private static final double MAX_ERROR_RATIO = Double.parseDouble(System.getProperty("load.max-error-ratio", "0.01"));
+    private static final Path REPORT_DIR = Path.of("target", "load-test");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private RatingAggregateService ratingAggregateService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    private final LoadTestDataset dataset = new LoadTestDataset();
+    private final AtomicLong flightSequence = new AtomicLong();
+    private final List<String> userTokens = new ArrayList<>();
+    private String adminToken;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> System.getProperty("load.pool-size", "20"));
+    }
+
+    @BeforeAll
+    void seed() {
+        dataset.seed(jdbcTemplate, passwordEncoder.encode(LoadTestDataset.PASSWORD));
+
+        // Les caches ont été remplis au démarrage, sur une base vide
+        entityManagerFactory.getCache().evictAll();
+        ratingAggregateService.rebuild();
+        statisticsService.reconcile();
+
+        Integer adminId = jdbcTemplate.queryForObject("SELECT id FROM account WHERE role = 'ADMIN' ORDER BY id LIMIT 1", Integer.class);
+        adminToken = jwtTokenProvider.generateToken("admin@avisdevol.com", adminId, Role.ADMIN);
+        for (int i = 0; i < dataset.accounts; i++) {
+            userTokens.add(jwtTokenProvider.generateToken(String.format(LoadTestDataset.EMAIL_PATTERN, i),
+                    dataset.accountIds.get(i), Role.USER));
+        }
+    }
+
+    @Test
+    void endpointsUnderLoad() throws InterruptedException, IOException {
+        List<OpenLoadGenerator.Scenario> scenarios = List.of(
+                new OpenLoadGenerator.Scenario("reviews-page", 100, () ->
+                        get("/api/reviews?limit=20&notation=" + (1 + random().nextInt(5)), userToken())),
+                new OpenLoadGenerator.Scenario("reviews-company", 50, () ->
+                        get("/api/reviews?limit=20&company=" + companyFragment(), userToken())),
+                new OpenLoadGenerator.Scenario("reviews-admin", 20, () ->
+                        get("/api/reviews?limit=50&status=TRAITE", adminToken)),
+                new OpenLoadGenerator.Scenario("flights-page", 100, () ->
+                        get("/api/flights?limit=20&sort=date&company=" + companyFragment(), userToken())),
+                new OpenLoadGenerator.Scenario("login", 10, () ->
+                        post("/api/accounts/login", null, "{\"email\":\"" + randomEmail() + "\",\"password\":\""
+                                + LoadTestDataset.PASSWORD + "\"}")),
+                new OpenLoadGenerator.Scenario("create-review", 20, () ->
+                        post("/api/reviews", userToken(), reviewBody())),
+                new OpenLoadGenerator.Scenario("submit-review", 50, () ->
+                        post("/api/reviews/submissions", userToken(), reviewBody())),
+                new OpenLoadGenerator.Scenario("create-flight", 5, () ->
+                        post("/api/flights", adminToken, "{\"flightNumber\":\"LN" + flightSequence.incrementAndGet()
+                                + "\",\"company\":\"" + dataset.companyNames.get(random().nextInt(dataset.companies))
+                                + "\",\"date\":\"2030-01-01T00:00:00.000+00:00\"}"))
+        );
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        List<OpenLoadGenerator.Result> results = new OpenLoadGenerator(client, REQUEST_TIMEOUT)
+                .run(scenarios, WARMUP, DURATION);
+
+        report(results);
+        for (OpenLoadGenerator.Result result : results) {
+            assertTrue(result.errorRatio() <= MAX_ERROR_RATIO,
+                    () -> result.scenario.name + ": " + result.errors.get() + " errors out of " + result.histogram.getTotalCount());
+        }
+    }
+
+    private void report(List<OpenLoadGenerator.Result> results) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        StringBuilder table = new StringBuilder(String.format("%nDataset: %d accounts, %d flights, %d reviews; %ds measured after %ds warmup%n",
+                dataset.accounts, dataset.flights, dataset.reviews, DURATION.getSeconds(), WARMUP.getSeconds()));
+        table.append(String.format("%-16s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+                "scenario", "target/s", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (OpenLoadGenerator.Result result : results) {
+            Histogram histogram = result.histogram;
+            table.append(String.format("%-16s %8.1f %8.1f %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    result.scenario.name, result.scenario.ratePerSecond, result.throughput, result.errors.get(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+
+            // Format HdrHistogram, lisible par les outils de tracé habituels
+            try (PrintStream out = new PrintStream(Files.newOutputStream(REPORT_DIR.resolve(result.scenario.name + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.println(table);
+        Files.writeString(REPORT_DIR.resolve("summary.txt"), table);
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private String userToken() {
+        return userTokens.get(random().nextInt(userTokens.size()));
+    }
+
+    private String randomEmail() {
+        return String.format(LoadTestDataset.EMAIL_PATTERN, random().nextInt(dataset.accounts));
+    }
+
+    private String companyFragment() {
+        return String.format("%02d", random().nextInt(100));
+    }
+
+    private String reviewBody() {
+        return "{\"content\":\"Avis de test de charge\",\"notation\":" + (1 + random().nextInt(5))
+                + ",\"flightId\":" + dataset.flightIds.get(random().nextInt(dataset.flightIds.size())) + "}";
+    }
+
+    private static ThreadLocalRandom random() {
+        return ThreadLocalRandom.current();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
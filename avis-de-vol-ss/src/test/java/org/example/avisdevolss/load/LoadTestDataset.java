@@ -0,0 +1,107 @@
+package org.example.avisdevolss.load;
+
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.entity.Role;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic dataset inserted with batched JDBC, sizes read from system properties:
+ * load.accounts, load.flights, load.companies, load.reviews, load.responses-per-review.
+ * Every account uses the same password, see {@link #PASSWORD}.
+ */
+final class LoadTestDataset {
+
+    static final String PASSWORD = "load-password";
+    static final String EMAIL_PATTERN = "load-%d@avisdevol.com";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] CONTENTS = {
+            "Vol à l'heure, équipage agréable.",
+            "Retard de deux heures sans explication.",
+            "Bagage perdu, service client injoignable.",
+            "Sièges confortables et repas correct.",
+            "Embarquement désorganisé mais vol sans souci."
+    };
+
+    final int accounts = Integer.getInteger("load.accounts", 1_000);
+    final int flights = Integer.getInteger("load.flights", 10_000);
+    final int companies = Integer.getInteger("load.companies", 200);
+    final int reviews = Integer.getInteger("load.reviews", 100_000);
+    final int responsesPerReview = Integer.getInteger("load.responses-per-review", 1);
+
+    final List<Integer> accountIds = new ArrayList<>();
+    final List<Integer> flightIds = new ArrayList<>();
+    final List<String> companyNames = new ArrayList<>();
+
+    private final Random random = new Random(15);
+
+    void seed(JdbcTemplate jdbcTemplate, String passwordHash) {
+        for (int i = 0; i < companies; i++) {
+            companyNames.add(String.format("Airline %03d", i));
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            rows.add(new Object[]{"Load", "User " + i, String.format(EMAIL_PATTERN, i), passwordHash, Role.USER.name()});
+        }
+        batch(jdbcTemplate, "INSERT INTO account (id, first_name, last_name, email, password, role) " +
+                "VALUES (nextval('hibernate_sequence'), ?, ?, ?, ?, ?)", rows);
+        accountIds.addAll(jdbcTemplate.queryForList("SELECT id FROM account WHERE email LIKE 'load-%' ORDER BY id", Integer.class));
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < flights; i++) {
+            long date = now + TimeUnit.DAYS.toMillis(random.nextInt(730) - 365);
+            rows.add(new Object[]{"LT" + i, companyNames.get(random.nextInt(companies)), new Timestamp(date)});
+        }
+        batch(jdbcTemplate, "INSERT INTO flight (id, flight_number, company, date) " +
+                "VALUES (nextval('flight_seq'), ?, ?, ?)", rows);
+        flightIds.addAll(jdbcTemplate.queryForList("SELECT id FROM flight WHERE flight_number LIKE 'LT%' ORDER BY id", Integer.class));
+
+        ReviewStatus[] statuses = ReviewStatus.values();
+        for (int i = 0; i < reviews; i++) {
+            rows.add(new Object[]{CONTENTS[random.nextInt(CONTENTS.length)], 1 + random.nextInt(5),
+                    statuses[random.nextInt(statuses.length)].name(), randomAccountId(), randomFlightId()});
+        }
+        batch(jdbcTemplate, "INSERT INTO review (id, content, notation, status, account_id, flight_id) " +
+                "VALUES (nextval('hibernate_sequence'), ?, ?, ?, ?, ?)", rows);
+
+        if (responsesPerReview > 0) {
+            List<Integer> reviewIds = jdbcTemplate.queryForList("SELECT id FROM review ORDER BY id", Integer.class);
+            for (Integer reviewId : reviewIds) {
+                for (int i = 0; i < responsesPerReview; i++) {
+                    rows.add(new Object[]{"Merci pour votre retour.", reviewId, randomAccountId()});
+                    if (rows.size() == BATCH_SIZE) {
+                        batch(jdbcTemplate, "INSERT INTO response (id, content, review_id, user_id) " +
+                                "VALUES (nextval('hibernate_sequence'), ?, ?, ?)", rows);
+                    }
+                }
+            }
+            batch(jdbcTemplate, "INSERT INTO response (id, content, review_id, user_id) " +
+                    "VALUES (nextval('hibernate_sequence'), ?, ?, ?)", rows);
+        }
+
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    int randomAccountId() {
+        return accountIds.get(random.nextInt(accountIds.size()));
+    }
+
+    int randomFlightId() {
+        return flightIds.get(random.nextInt(flightIds.size()));
+    }
+
+    // Vide la liste après insertion pour la réutiliser
+    private static void batch(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        rows.clear();
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.avisdevolss.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load generator: each scenario sends requests at a fixed rate, whatever the response times.
+ * Latency is measured from the time the request was scheduled to be sent, not from the time it was
+ * actually sent, so a stalled server shows up in the percentiles instead of slowing the load down
+ * (coordinated omission).
+ */
+final class OpenLoadGenerator {
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+
+    OpenLoadGenerator(HttpClient client, Duration requestTimeout) {
+        this.client = client;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Run all scenarios concurrently
+     * @param warmup time during which requests are sent but not recorded
+     * @param duration measured time, after the warmup
+     * @return one result per scenario, in the same order
+     */
+    List<Result> run(List<Scenario> scenarios, Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+
+        List<Result> results = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            Result result = new Result(scenario);
+            results.add(result);
+            Thread thread = new Thread(() -> drive(scenario, result, start, measureStart, end), "load-" + scenario.name);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Laisse les dernières requêtes se terminer
+        long deadline = System.nanoTime() + requestTimeout.toNanos();
+        for (Result result : results) {
+            while (result.inFlight.get() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            result.finish(duration);
+        }
+        return results;
+    }
+
+    private void drive(Scenario scenario, Result result, long start, long measureStart, long end) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / scenario.ratePerSecond);
+        for (long n = 0; ; n++) {
+            long intended = start + n * intervalNanos;
+            if (intended >= end) {
+                return;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            boolean measured = intended >= measureStart;
+            HttpRequest request = scenario.request.get();
+            result.inFlight.incrementAndGet();
+            client.sendAsync(HttpRequest.newBuilder(request, (name, value) -> true).timeout(requestTimeout).build(),
+                            HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                        if (measured) {
+                            result.recorder.recordValue(latencyMicros);
+                            if (error != null || response.statusCode() >= 400) {
+                                result.errors.incrementAndGet();
+                            }
+                        }
+                        result.inFlight.decrementAndGet();
+                    });
+        }
+    }
+
+    static final class Scenario {
+        final String name;
+        final double ratePerSecond;
+        final Supplier<HttpRequest> request;
+
+        /**
+         * @param name scenario name, also used to override the rate with -Dload.rate.&lt;name&gt;
+         * @param defaultRate requests per second when no override is given
+         * @param request builds the next request, only called from the scenario's own thread
+         */
+        Scenario(String name, double defaultRate, Supplier<HttpRequest> request) {
+            this.name = name;
+            this.ratePerSecond = Double.parseDouble(System.getProperty("load.rate." + name, String.valueOf(defaultRate)));
+            this.request = request;
+        }
+    }
+
+    static final class Result {
+        final Scenario scenario;
+        final Recorder recorder = new Recorder(3);
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong inFlight = new AtomicLong();
+        Histogram histogram;
+        double throughput;
+
+        Result(Scenario scenario) {
+            this.scenario = scenario;
+        }
+
+        void finish(Duration duration) {
+            histogram = recorder.getIntervalHistogram();
+            throughput = histogram.getTotalCount() / (duration.toMillis() / 1000.0);
+        }
+
+        double errorRatio() {
+            long count = histogram.getTotalCount();
+            return count == 0 ? 0 : (double) errors.get() / count;
+        }
+    }
+}
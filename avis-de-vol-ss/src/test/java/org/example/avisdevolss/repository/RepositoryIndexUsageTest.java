@@ -0,0 +1,196 @@
+package org.example.avisdevolss.repository;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Response;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.service.CompanySearch;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every repository query can be answered from an index (see db/migration/V2__query_indexes.sql
+ * and V3__company_trigram_index.sql).
+ * Each query runs for real, with its actual SQL and parameters, in a transaction where sequential
+ * scans are disabled: the planner then picks an index whenever one applies, and the scan counters
+ * of the transaction (pg_stat_xact_user_tables) tell whether a table was still read sequentially.
+ * Not covered: FlightRepository.findByCompanyContainingIgnoreCase and findByFlightNumberContainingIgnoreCase,
+ * unused since company searches go through CompanySearch.
+ */
+@SpringBootTest
+@Transactional
+class RepositoryIndexUsageTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ResponseRepository responseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Account account;
+    private Flight flight;
+    private Review review;
+
+    @BeforeEach
+    void reviewWithResponse() {
+        account = accountRepository.findByEmail("admin@avisdevol.com").orElseThrow();
+        flight = flightRepository.findAll().get(0);
+
+        review = new Review();
+        review.setContent("Index");
+        review.setNotation(4);
+        review.setStatus(ReviewStatus.TRAITE);
+        review.setAccount(account);
+        review.setFlight(flight);
+        reviewRepository.save(review);
+
+        Response response = new Response();
+        response.setContent("Réponse");
+        response.setReview(review);
+        response.setUser(account);
+        responseRepository.save(response);
+
+        entityManager.flush();
+        entityManager.clear();
+        // Les requêtes en cache doivent atteindre la base
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void accountQueriesUseIndexes() {
+        assertUsesIndexes("findByEmail", () -> accountRepository.findByEmail(account.getEmail()));
+        assertUsesIndexes("existsByEmail", () -> accountRepository.existsByEmail(account.getEmail()));
+        assertUsesIndexes("findByFirstNameContainingIgnoreCase", () -> accountRepository.findByFirstNameContainingIgnoreCase("dmi"));
+        assertUsesIndexes("findByLastNameContainingIgnoreCase", () -> accountRepository.findByLastNameContainingIgnoreCase("dmi"));
+        assertUsesIndexes("findByFullNameContaining", () -> accountRepository.findByFullNameContaining("dmi"));
+        assertUsesIndexes("findByRole", () -> accountRepository.findByRole(Role.ADMIN));
+        assertUsesIndexes("findRoleById", () -> accountRepository.findRoleById(account.getId()));
+    }
+
+    @Test
+    void flightQueriesUseIndexes() {
+        Date from = new Date(flight.getDate().getTime() - 86_400_000L);
+        Date to = new Date(flight.getDate().getTime() + 86_400_000L);
+        String fragment = flight.getCompany().substring(1).toUpperCase();
+        Specification<Flight> byCompany = (root, query, cb) -> CompanySearch.predicate(cb, root.get("company"), fragment);
+        assertUsesIndexes("findByFlightNumber", () -> flightRepository.findByFlightNumber(flight.getFlightNumber()));
+        assertUsesIndexes("existsByFlightNumber", () -> flightRepository.existsByFlightNumber(flight.getFlightNumber()));
+        assertUsesIndexes("findAll by company", () -> flightRepository.findAll(byCompany));
+        assertUsesIndexes("findByDateBetween", () -> flightRepository.findByDateBetween(from, to));
+        assertUsesIndexes("findAllCompanies", () -> flightRepository.findAllCompanies());
+        assertUsesIndexes("findMinDate", () -> flightRepository.findMinDate());
+        assertUsesIndexes("findMaxDate", () -> flightRepository.findMaxDate());
+        assertUsesIndexes("countAllFlights", () -> flightRepository.countAllFlights());
+        assertUsesIndexes("countDistinctCompanies", () -> flightRepository.countDistinctCompanies());
+        assertUsesIndexes("countFlightsByCompany", () -> flightRepository.countFlightsByCompany());
+    }
+
+    @Test
+    void companySearchUsesTheTrigramIndex() {
+        String fragment = flight.getCompany().substring(1).toUpperCase();
+        long before = trigramIndexScans();
+        flightRepository.findAll((root, query, cb) -> CompanySearch.predicate(cb, root.get("company"), fragment));
+        // Un parcours complet de idx_flight_company satisferait aussi assertUsesIndexes
+        assertTrue(trigramIndexScans() > before, "the company search did not use idx_flight_company_lower_trgm");
+    }
+
+    @Test
+    void reviewQueriesUseIndexes() {
+        Specification<Review> byAccount = (root, query, cb) -> cb.equal(root.get("account").get("id"), account.getId());
+        Specification<Review> byNotation = (root, query, cb) -> cb.equal(root.get("notation"), 4);
+        assertUsesIndexes("findWithDetailsById", () -> reviewRepository.findWithDetailsById(review.getId()));
+        assertUsesIndexes("findByFlightId", () -> reviewRepository.findByFlightId(flight.getId()));
+        assertUsesIndexes("findByAccountId", () -> reviewRepository.findByAccountId(account.getId()));
+        assertUsesIndexes("findByStatus", () -> reviewRepository.findByStatus(ReviewStatus.TRAITE));
+        assertUsesIndexes("countByFlightId", () -> reviewRepository.countByFlightId(flight.getId()));
+        assertUsesIndexes("countAllReviews", () -> reviewRepository.countAllReviews());
+        assertUsesIndexes("countByFlightStatusAndNotation", () -> reviewRepository.countByFlightStatusAndNotation());
+        assertUsesIndexes("existsByAccountId", () -> reviewRepository.existsByAccountId(account.getId()));
+        assertUsesIndexes("existsByFlightId", () -> reviewRepository.existsByFlightId(flight.getId()));
+        assertUsesIndexes("findAfterId by account", () -> reviewRepository.findAfterId(byAccount, 0, 20));
+        assertUsesIndexes("findAfterId by notation", () -> reviewRepository.findAfterId(byNotation, 0, 20));
+    }
+
+    @Test
+    void responseQueriesUseIndexes() {
+        assertUsesIndexes("findByReviewId", () -> responseRepository.findByReviewId(review.getId()));
+        assertUsesIndexes("findByUserId", () -> responseRepository.findByUserId(account.getId()));
+        assertUsesIndexes("findByReviewIdIn", () -> responseRepository.findByReviewIdIn(List.of(review.getId())));
+    }
+
+    private void assertUsesIndexes(String query, Runnable call) {
+        Map<String, long[]> before = scans();
+        call.run();
+        // Le contexte de persistance resterait sinon partagé entre les requêtes
+        entityManager.clear();
+        Map<String, long[]> after = scans();
+
+        long indexScans = 0;
+        for (Map.Entry<String, long[]> table : after.entrySet()) {
+            long[] previous = before.getOrDefault(table.getKey(), new long[2]);
+            long seqScans = table.getValue()[0] - previous[0];
+            assertTrue(seqScans == 0, () -> query + " reads table " + table.getKey() + " sequentially");
+            indexScans += table.getValue()[1] - previous[1];
+        }
+        long used = indexScans;
+        assertTrue(used > 0, () -> query + " used no index");
+    }
+
+    private long trigramIndexScans() {
+        return jdbcTemplate.queryForObject(
+                "SELECT pg_stat_get_xact_numscans('idx_flight_company_lower_trgm'::regclass)", Long.class);
+    }
+
+    /**
+     * @return sequential and index scans per table, counted since the beginning of the transaction
+     */
+    private Map<String, long[]> scans() {
+        Map<String, long[]> scans = new HashMap<>();
+        jdbcTemplate.query("SELECT relname, seq_scan, coalesce(idx_scan, 0) AS idx_scan FROM pg_stat_xact_user_tables",
+                rs -> {
+                    scans.put(rs.getString("relname"), new long[] {rs.getLong("seq_scan"), rs.getLong("idx_scan")});
+                });
+        return scans;
+    }
+}
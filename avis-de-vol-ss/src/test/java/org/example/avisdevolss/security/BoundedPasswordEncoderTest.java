@@ -0,0 +1,106 @@
+package org.example.avisdevolss.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.avisdevolss.exception.PasswordHashingRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hashing runs on at most pool-size threads; beyond the queue, or after the timeout, callers are rejected
+ */
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void hashesOnAtMostPoolSizeThreads() throws Exception {
+        encoder = new BoundedPasswordEncoder(blockingDelegate(), 2, 10, 10_000, meterRegistry);
+        Future<?>[] calls = new Future<?>[6];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = callers.submit(() -> encoder.matches("secret", "hash"));
+        }
+        waitFor(() -> running.get() == 2);
+        release.countDown();
+        for (Future<?> call : calls) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void rejectsOnceTheQueueIsFull() throws Exception {
+        encoder = new BoundedPasswordEncoder(blockingDelegate(), 1, 1, 10_000, meterRegistry);
+        callers.submit(() -> encoder.matches("running", "hash"));
+        waitFor(() -> running.get() == 1);
+        callers.submit(() -> encoder.matches("queued", "hash"));
+        waitFor(() -> meterRegistry.get("password.hashing.queue.size").gauge().value() == 1);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.matches("rejected", "hash"));
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+
+    @Test
+    void rejectsAfterTheTimeout() {
+        encoder = new BoundedPasswordEncoder(blockingDelegate(), 1, 1, 50, meterRegistry);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.matches("slow", "hash"));
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+
+    private PasswordEncoder blockingDelegate() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                return true;
+            }
+        };
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition not reached in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.avisdevolss.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.avisdevolss.entity.Role;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verified tokens are served from the cache until their own expiration date, and a tampered token never is
+ */
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "testSecretKey12345678901234567890123456789";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void verifiedTokenIsServedFromTheCache() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100, meterRegistry);
+        String token = provider.generateToken("user@avisdevol.com", 3, Role.ADMIN);
+
+        Claims first = provider.parseClaims(token).orElseThrow();
+        Claims second = provider.parseClaims(token).orElseThrow();
+
+        assertEquals("user@avisdevol.com", second.getSubject());
+        assertEquals(Role.ADMIN, provider.getRoleFromClaims(first));
+        assertEquals(1, verifications("valid"));
+        assertEquals(1, verifications("cached"));
+    }
+
+    @Test
+    void cachedTokenIsRefusedOnceExpired() throws InterruptedException {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 1_000, 100, meterRegistry);
+        String token = provider.generateToken("user@avisdevol.com", 3, Role.USER);
+        assertTrue(provider.validateToken(token));
+
+        // "exp" est à la seconde près : on attend au-delà de la seconde suivante
+        Thread.sleep(2_100);
+
+        assertEquals(Optional.empty(), provider.parseClaims(token));
+        assertEquals(0, verifications("cached"));
+        assertEquals(1, verifications("expired"));
+    }
+
+    @Test
+    void tamperedTokenIsNotServedFromTheCache() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100, meterRegistry);
+        String token = provider.generateToken("user@avisdevol.com", 3, Role.USER);
+        assertTrue(provider.validateToken(token));
+
+        String[] parts = token.split("\\.");
+        String forged = provider.generateToken("admin@avisdevol.com", 1, Role.ADMIN).split("\\.")[1];
+        String tampered = parts[0] + "." + forged + "." + parts[2];
+
+        assertEquals(Optional.empty(), provider.parseClaims(tampered));
+        assertEquals(0, verifications("cached"));
+        assertEquals(1, verifications("invalid_signature"));
+    }
+
+    private double verifications(String result) {
+        return meterRegistry.counter("jwt.verifications", "result", result).count();
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.avisdevolss.security;
+
+import org.example.avisdevolss.entity.Role;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Role claim trusted while recent and not revoked, database role otherwise
+ */
+class RoleRevocationCacheTest {
+
+    private static final long ROLE_TTL_MS = 60_000;
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final RoleRevocationCache cache = new RoleRevocationCache(accountRepository, ROLE_TTL_MS, 10);
+
+    @Test
+    void trustsARecentClaim() {
+        assertEquals(Role.ADMIN, cache.resolveRole(1, Role.ADMIN, issuedSecondsAgo(1)));
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void readsTheRoleOfAnOldTokenFromTheDatabase() {
+        when(accountRepository.findRoleById(1)).thenReturn(Optional.of(Role.USER));
+
+        assertEquals(Role.USER, cache.resolveRole(1, Role.ADMIN, new Date(System.currentTimeMillis() - 2 * ROLE_TTL_MS)));
+        assertEquals(Role.USER, cache.resolveRole(1, Role.ADMIN, new Date(System.currentTimeMillis() - 2 * ROLE_TTL_MS)));
+        verify(accountRepository, times(1)).findRoleById(1);
+    }
+
+    @Test
+    void distrustsATokenFromTheSecondOfTheChange() throws InterruptedException {
+        when(accountRepository.findRoleById(1)).thenReturn(Optional.of(Role.USER));
+        // Le token et le changement doivent tomber dans la même seconde
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+        // "iat" tronqué à la seconde, comme dans un vrai token
+        Date sameSecond = issuedSecondsAgo(0);
+
+        cache.revoke(1);
+
+        assertEquals(Role.USER, cache.resolveRole(1, Role.ADMIN, sameSecond));
+        assertEquals(Role.ADMIN, cache.resolveRole(1, Role.ADMIN, new Date(sameSecond.getTime() + 1000)));
+    }
+
+    @Test
+    void grantsUserToADeletedAccount() {
+        when(accountRepository.findRoleById(1)).thenReturn(Optional.empty());
+        cache.revoke(1);
+
+        assertEquals(Role.USER, cache.resolveRole(1, Role.ADMIN, issuedSecondsAgo(0)));
+    }
+
+    private static Date issuedSecondsAgo(int seconds) {
+        long now = System.currentTimeMillis();
+        return new Date(now - now % 1000 - seconds * 1000L);
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.avisdevolss.service;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.config.SqlStatementCounter;
+import org.example.avisdevolss.dto.BulkModerationResultDto;
+import org.example.avisdevolss.dto.ModerationOutcome;
+import org.example.avisdevolss.dto.ReviewCreateDto;
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.example.avisdevolss.config.SqlStatementAssertions.assertStatementsAtMost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bulk publish/reject: one UPDATE per chunk, an outcome per review, and counters and cache kept in step
+ */
+@SpringBootTest(properties = "moderation.bulk.chunk-size=10")
+class BulkModerationServiceTest {
+
+    private static final int REVIEWS = 10;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private BulkModerationService bulkModerationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private RatingAggregateService ratingAggregateService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    private final List<Integer> reviewIds = new ArrayList<>();
+    private Flight flight;
+    private Integer moderator;
+    private Integer author;
+
+    @BeforeEach
+    void pendingReviews() {
+        moderator = accountRepository.findByEmail("admin@avisdevol.com").orElseThrow().getId();
+        author = accountRepository.findByEmail("user@avisdevol.com").orElseThrow().getId();
+
+        flight = new Flight();
+        flight.setFlightNumber("BULK-" + UUID.randomUUID().toString().substring(0, 8));
+        flight.setCompany("Bulk " + flight.getFlightNumber());
+        flight.setDate(new Date());
+        flight = flightService.createFlight(flight);
+
+        for (int i = 0; i < REVIEWS; i++) {
+            ReviewCreateDto review = new ReviewCreateDto();
+            review.setContent("En masse " + i);
+            review.setNotation(1 + i % 5);
+            review.setFlightId(flight.getId());
+            reviewIds.add(reviewService.createReview(review, author).getId());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        reviewIds.forEach(reviewService::deleteReview);
+        reviewIds.clear();
+        flightService.deleteFlight(flight.getId());
+    }
+
+    @Test
+    void rejectsAChunkWithOneUpdate() {
+        // Mis en cache avant le rejet, il doit en être retiré
+        assertEquals(ReviewStatus.TRAITE, reviewService.getReviewById(reviewIds.get(0)).getStatus());
+
+        // L'UPDATE des avis, puis la version des avis (ResourceVersions)
+        BulkModerationResultDto result = assertStatementsAtMost(sqlStatementCounter, 2,
+                () -> bulkModerationService.moderate(reviewIds, ReviewStatus.REJETE, moderator));
+
+        assertEquals(REVIEWS, result.getUpdated());
+        assertEquals(ReviewStatus.REJETE, reviewService.getReviewById(reviewIds.get(0)).getStatus());
+        assertEquals(0, count(ReviewStatus.TRAITE));
+        assertEquals(REVIEWS, count(ReviewStatus.REJETE));
+    }
+
+    @Test
+    void reportsAnOutcomePerReview() {
+        Integer claimed = claimAsOtherModerator();
+        Integer alreadyPublished = reviewIds.get(1);
+        reviewService.publishReview(alreadyPublished);
+        List<Integer> ids = List.of(reviewIds.get(2), alreadyPublished, claimed, -1);
+
+        BulkModerationResultDto result = bulkModerationService.moderate(ids, ReviewStatus.PUBLIE, moderator);
+
+        assertEquals(1, result.getUpdated());
+        assertEquals(ModerationOutcome.UPDATED, result.getOutcomes().get(reviewIds.get(2)));
+        assertEquals(ModerationOutcome.NOT_PENDING, result.getOutcomes().get(alreadyPublished));
+        assertEquals(ModerationOutcome.CLAIMED, result.getOutcomes().get(claimed));
+        assertEquals(ModerationOutcome.NOT_FOUND, result.getOutcomes().get(-1));
+        assertEquals(2, count(ReviewStatus.PUBLIE));
+    }
+
+    @Test
+    void moderatesEveryPendingReviewMatchingAFilter() {
+        ReviewFilterDto filter = new ReviewFilterDto();
+        filter.setCompany(flight.getCompany());
+        filter.setNotation(1);
+
+        BulkModerationResultDto result = bulkModerationService.moderate(filter, ReviewStatus.PUBLIE, moderator);
+
+        assertEquals(REVIEWS / 5, result.getUpdated());
+        assertEquals(REVIEWS / 5, count(ReviewStatus.PUBLIE));
+        assertEquals(REVIEWS - REVIEWS / 5, count(ReviewStatus.TRAITE));
+    }
+
+    private Integer claimAsOtherModerator() {
+        Integer id = reviewIds.get(0);
+        jdbcTemplate.update("UPDATE review SET claimed_by = ?, claim_expires_at = now() + interval '1 hour' WHERE id = ?", author, id);
+        return id;
+    }
+
+    private long count(ReviewStatus status) {
+        return ratingAggregateService.getFlightStats(flight.getId()).getByStatus().get(status).getCount();
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.avisdevolss.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cursors decode to the position they were built from, and a cursor of another kind is refused
+ */
+class CursorCodecTest {
+
+    @Test
+    void dateIdCursorKeepsItsPosition() {
+        Date date = new Date(1_714_521_600_123L);
+
+        CursorCodec.DateIdPosition position = CursorCodec.decodeDateId(CursorCodec.encodeDateId(date, 42));
+
+        assertEquals(date, position.getDate());
+        assertEquals(42, position.getId());
+        assertNull(CursorCodec.decodeDateId(null));
+        assertNull(CursorCodec.decodeDateId(""));
+    }
+
+    @Test
+    void idCursorKeepsItsPosition() {
+        assertEquals(7, CursorCodec.decodeId(CursorCodec.encodeId(7)));
+        assertNull(CursorCodec.decodeId(null));
+    }
+
+    @Test
+    void refusesCursorsOfAnotherKindOrTampered() {
+        String idCursor = CursorCodec.encodeId(7);
+        String dateCursor = CursorCodec.encodeDateId(new Date(), 7);
+
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decodeDateId(idCursor));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decodeId(dateCursor));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decodeId("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decodeDateId(CursorCodec.encodeId(7).substring(1)));
+    }
+
+    @Test
+    void limitIsBounded() {
+        assertEquals(CursorCodec.DEFAULT_LIMIT, CursorCodec.normalizeLimit(null));
+        assertEquals(CursorCodec.MAX_LIMIT, CursorCodec.normalizeLimit(CursorCodec.MAX_LIMIT + 1));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.normalizeLimit(0));
+    }
+}
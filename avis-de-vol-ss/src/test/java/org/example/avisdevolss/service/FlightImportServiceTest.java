@@ -0,0 +1,180 @@
+package org.example.avisdevolss.service;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.dto.FlightImportResultDto;
+import org.example.avisdevolss.dto.ReviewCreateDto;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Flight import: CSV and NDJSON parsing, one upsert per batch, and the side effects of a company change
+ */
+@SpringBootTest(properties = "import.batch-size=2")
+class FlightImportServiceTest {
+
+    private static final String HEADER = "flightNumber,company,date\n";
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private FlightImportService flightImportService;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private RatingAggregateService ratingAggregateService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> reviewIds = new ArrayList<>();
+    private String prefix;
+
+    @BeforeEach
+    void setUp() {
+        prefix = "IMP-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+
+    @AfterEach
+    void cleanUp() {
+        reviewIds.forEach(reviewService::deleteReview);
+        reviewIds.clear();
+        jdbcTemplate.update("DELETE FROM flight WHERE flight_number LIKE ?", prefix + "%");
+        statisticsService.reconcile();
+    }
+
+    @Test
+    void parsesQuotedCsvFieldsAndReportsRejectedLines() throws IOException {
+        FlightImportResultDto result = importFlights("csv", HEADER
+                + prefix + "1,\"Air France, KLM\",2024-05-01\n"
+                + prefix + "2,\"Le \"\"Concorde\"\"\",2024-05-02\n"
+                + "\n"
+                + prefix + "3,Air,2024-02-30\n"
+                + prefix + "4,Air\n");
+
+        assertEquals(2, result.getUpserted());
+        assertEquals(2, result.getRejected());
+        assertTrue(result.getErrors().get(0).startsWith("Line 5:"), result.getErrors().get(0));
+        assertTrue(result.getErrors().get(1).startsWith("Line 6:"), result.getErrors().get(1));
+        assertEquals("Air France, KLM", flight(prefix + "1").getCompany());
+        assertEquals("Le \"Concorde\"", flight(prefix + "2").getCompany());
+    }
+
+    @Test
+    void readsCsvAndNdjsonDatesInTheSameZone() throws IOException {
+        importFlights("csv", HEADER + prefix + "CSV,Air,2024-05-01\n");
+        importFlights("ndjson", "{\"flightNumber\":\"" + prefix + "JSON\",\"company\":\"Air\",\"date\":\"2024-05-01\"}\n");
+
+        Date expected = Date.from(Instant.parse("2024-05-01T00:00:00Z"));
+        assertEquals(expected.getTime(), flight(prefix + "CSV").getDate().getTime());
+        assertEquals(expected.getTime(), flight(prefix + "JSON").getDate().getTime());
+    }
+
+    @Test
+    void upsertsOneBatchAtATimeWithIdsFromTheFlightSequence() throws IOException {
+        long flights = statisticsService.getFlightCount();
+
+        FlightImportResultDto result = importFlights("csv", HEADER
+                + prefix + "1,Air,2024-05-01\n"
+                + prefix + "2,Air,2024-05-01\n"
+                + prefix + "3,Air,2024-05-01\n"
+                + prefix + "1,Air,2024-06-01\n"
+                + prefix + "4,Air,2024-05-01\n");
+
+        assertEquals(5, result.getUpserted());
+        assertEquals(3, result.getBatches());
+        assertEquals(4, count(prefix + "%"));
+        assertEquals(Date.from(Instant.parse("2024-06-01T00:00:00Z")).getTime(), flight(prefix + "1").getDate().getTime());
+        assertEquals(flights + 4, statisticsService.getFlightCount());
+
+        // Les blocs de l'import et ceux de Hibernate ne se chevauchent pas
+        Flight created = new Flight();
+        created.setFlightNumber(prefix + "JPA");
+        created.setCompany("Air");
+        created.setDate(new Date());
+        assertTrue(flightService.createFlight(created).getId() > 0);
+        assertEquals(5, count(prefix + "%"));
+    }
+
+    @Test
+    void movesRatingsAndCachedReviewsToTheNewCompany() throws IOException {
+        String before = prefix + "Before";
+        String after = prefix + "After";
+        importFlights("csv", HEADER + prefix + "1," + before + ",2024-05-01\n");
+        Flight flight = flight(prefix + "1");
+        Integer author = accountRepository.findByEmail("user@avisdevol.com").orElseThrow().getId();
+        ReviewCreateDto review = new ReviewCreateDto();
+        review.setContent("Importé");
+        review.setNotation(4);
+        review.setFlightId(flight.getId());
+        Integer reviewId = reviewService.createReview(review, author).getId();
+        reviewIds.add(reviewId);
+        // Mis en cache avec l'ancienne compagnie
+        assertEquals(before, reviewService.getReviewById(reviewId).getCompany());
+
+        importFlights("ndjson", "{\"flightNumber\":\"" + prefix + "1\",\"company\":\"" + after + "\",\"date\":\"2024-05-01\"}\n");
+
+        assertEquals(flight.getId(), flight(prefix + "1").getId());
+        assertEquals(after, reviewService.getReviewById(reviewId).getCompany());
+        assertEquals(0, pending(before));
+        assertEquals(1, pending(after));
+    }
+
+    private FlightImportResultDto importFlights(String format, String content) throws IOException {
+        return flightImportService.importFlights(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private Flight flight(String flightNumber) {
+        return flightService.findByCompany(companyOf(flightNumber)).stream()
+                .filter(f -> f.getFlightNumber().equals(flightNumber))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private String companyOf(String flightNumber) {
+        return jdbcTemplate.queryForObject("SELECT company FROM flight WHERE flight_number = ?", String.class, flightNumber);
+    }
+
+    private int count(String pattern) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM flight WHERE flight_number LIKE ?", Integer.class, pattern);
+    }
+
+    private long pending(String company) {
+        return ratingAggregateService.getCompanyStats(company).getByStatus().get(ReviewStatus.TRAITE).getCount();
+    }
+}
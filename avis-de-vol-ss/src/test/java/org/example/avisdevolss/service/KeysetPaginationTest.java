@@ -0,0 +1,174 @@
+package org.example.avisdevolss.service;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.dto.CursorPageDto;
+import org.example.avisdevolss.dto.ReviewCreateDto;
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.example.avisdevolss.dto.ReviewResponseDto;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Keyset pages of flights and reviews: following nextCursor visits every row once, in order,
+ * ties on the date included, and the last page has no cursor even when it is full
+ */
+@SpringBootTest
+class KeysetPaginationTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Flight> flights = new ArrayList<>();
+    private String company;
+
+    @BeforeEach
+    void setUp() {
+        company = "Page " + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (Flight flight : flights) {
+            jdbcTemplate.update("DELETE FROM review WHERE flight_id = ?", flight.getId());
+            flightService.deleteFlight(flight.getId());
+        }
+        flights.clear();
+        statisticsService.reconcile();
+    }
+
+    @Test
+    void flightPagesByDateKeepTiesInIdOrder() {
+        // Créés hors de l'ordre des dates, dont deux paires à la même date
+        createFlight("2024-05-03");
+        createFlight("2024-05-01");
+        createFlight("2024-05-02");
+        createFlight("2024-05-01");
+        createFlight("2024-05-02");
+        List<Integer> expected = flights.stream()
+                .sorted(Comparator.comparing(Flight::getDate).thenComparing(Flight::getId))
+                .map(Flight::getId)
+                .collect(Collectors.toList());
+
+        List<CursorPageDto<Flight>> pages = pages(after -> flightService.findFlightsPage(company, null, null, "date", after, 2));
+
+        assertEquals(List.of(2, 2, 1), sizes(pages));
+        assertEquals(expected, flightIds(pages));
+    }
+
+    @Test
+    void fullLastFlightPageHasNoCursor() {
+        for (int i = 0; i < 4; i++) {
+            createFlight("2024-05-01");
+        }
+        List<Integer> expected = flights.stream().map(Flight::getId).sorted().collect(Collectors.toList());
+
+        List<CursorPageDto<Flight>> pages = pages(after -> flightService.findFlightsPage(company, null, null, "id", after, 2));
+
+        assertEquals(List.of(2, 2), sizes(pages));
+        assertEquals(expected, flightIds(pages));
+        assertNotNull(pages.get(0).getNextCursor());
+
+        CursorPageDto<Flight> single = flightService.findFlightsPage(company, null, null, "id", null, 4);
+        assertEquals(4, single.getItems().size());
+        assertNull(single.getNextCursor());
+    }
+
+    @Test
+    void reviewPagesVisitEveryReviewOnce() {
+        Flight flight = createFlight("2024-05-01");
+        Integer author = accountRepository.findByEmail("user@avisdevol.com").orElseThrow().getId();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ReviewCreateDto review = new ReviewCreateDto();
+            review.setContent("Page " + i);
+            review.setNotation(3);
+            review.setFlightId(flight.getId());
+            expected.add(reviewService.createReview(review, author).getId());
+        }
+        ReviewFilterDto filter = new ReviewFilterDto();
+        filter.setCompany(company);
+
+        List<CursorPageDto<ReviewResponseDto>> pages = pages(after -> reviewService.findReviewsPage(filter, after, 2));
+
+        assertEquals(List.of(2, 2, 1), sizes(pages));
+        assertEquals(expected, pages.stream()
+                .flatMap(page -> page.getItems().stream())
+                .map(ReviewResponseDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(), pages.get(0).getItems().get(0).getResponses());
+    }
+
+    /**
+     * Follow nextCursor from the first page until the last one
+     */
+    private static <T> List<CursorPageDto<T>> pages(Function<String, CursorPageDto<T>> fetch) {
+        List<CursorPageDto<T>> pages = new ArrayList<>();
+        String after = null;
+        do {
+            CursorPageDto<T> page = fetch.apply(after);
+            pages.add(page);
+            after = page.getNextCursor();
+        } while (after != null && pages.size() < 10);
+        assertNull(after, "Pagination did not end");
+        return pages;
+    }
+
+    private static List<Integer> sizes(List<? extends CursorPageDto<?>> pages) {
+        return pages.stream().map(page -> page.getItems().size()).collect(Collectors.toList());
+    }
+
+    private static List<Integer> flightIds(List<CursorPageDto<Flight>> pages) {
+        return pages.stream()
+                .flatMap(page -> page.getItems().stream())
+                .map(Flight::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Flight createFlight(String date) {
+        Flight flight = new Flight();
+        flight.setFlightNumber("PAGE" + flights.size());
+        flight.setCompany(company);
+        flight.setDate(Date.from(Instant.parse(date + "T00:00:00Z")));
+        Flight created = flightService.createFlight(flight);
+        flights.add(created);
+        return created;
+    }
+}
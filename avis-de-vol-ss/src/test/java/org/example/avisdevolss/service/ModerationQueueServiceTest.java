@@ -0,0 +1,197 @@
+package org.example.avisdevolss.service;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.dto.ModerationClaimDto;
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.example.avisdevolss.dto.ReviewResponseDto;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.exception.ReviewClaimedException;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.repository.FlightRepository;
+import org.example.avisdevolss.repository.ReviewRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Claims of the moderation queue: no review handed to two moderators, leases renewed, expired and released,
+ * claimed reviews hidden from the other moderators
+ */
+@SpringBootTest
+class ModerationQueueServiceTest {
+
+    // Modérateur fictif qui garde de côté les avis en attente laissés par les autres tests
+    private static final int PARKED = -1;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private ModerationQueueService moderationQueueService;
+
+    @Autowired
+    private BulkModerationService bulkModerationService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> created = new ArrayList<>();
+    private Integer alice;
+    private Integer bob;
+
+    @BeforeEach
+    void parkPendingReviews() {
+        jdbcTemplate.update("UPDATE review SET claimed_by = ?, claim_expires_at = now() + interval '1 hour' WHERE status = 'TRAITE'", PARKED);
+        alice = accountRepository.findByEmail("admin@avisdevol.com").orElseThrow().getId();
+        bob = accountRepository.findByEmail("user@avisdevol.com").orElseThrow().getId();
+    }
+
+    @AfterEach
+    void unparkPendingReviews() {
+        reviewRepository.deleteAllById(created);
+        jdbcTemplate.update("UPDATE review SET claimed_by = NULL, claim_expires_at = NULL WHERE status = 'TRAITE'");
+    }
+
+    @Test
+    void concurrentClaimsNeverShareAReview() throws Exception {
+        Set<Integer> pending = createPendingReviews(6);
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<ModerationClaimDto> aliceClaim = CompletableFuture.supplyAsync(() -> claimAfter(start, alice));
+        CompletableFuture<ModerationClaimDto> bobClaim = CompletableFuture.supplyAsync(() -> claimAfter(start, bob));
+        start.countDown();
+
+        Set<Integer> aliceIds = ids(aliceClaim.get());
+        Set<Integer> bobIds = ids(bobClaim.get());
+        assertTrue(aliceIds.size() <= 3 && bobIds.size() <= 3);
+        assertTrue(aliceIds.stream().noneMatch(bobIds::contains));
+
+        // Ce qui n'a pas été réservé reste disponible
+        Set<Integer> all = new HashSet<>(aliceIds);
+        all.addAll(bobIds);
+        all.addAll(ids(moderationQueueService.claim(bob, 6)));
+        assertEquals(pending, all);
+    }
+
+    @Test
+    void claimingAgainRenewsTheLeaseOfHeldReviews() {
+        createPendingReviews(2);
+        ModerationClaimDto first = moderationQueueService.claim(alice, 2);
+        ModerationClaimDto second = moderationQueueService.claim(alice, 2);
+
+        assertEquals(ids(first), ids(second));
+        assertFalse(second.getLeaseExpiresAt().before(first.getLeaseExpiresAt()));
+        assertTrue(moderationQueueService.claim(bob, 2).getReviews().isEmpty());
+    }
+
+    @Test
+    void expiredOrReleasedReviewsGoBackToTheQueue() {
+        createPendingReviews(2);
+        List<Integer> claimed = List.copyOf(ids(moderationQueueService.claim(alice, 2)));
+
+        jdbcTemplate.update("UPDATE review SET claim_expires_at = now() - interval '1 second' WHERE id = ?", claimed.get(0));
+        assertTrue(moderationQueueService.release(claimed.get(1), alice));
+        assertFalse(moderationQueueService.release(claimed.get(1), alice));
+
+        assertEquals(Set.copyOf(claimed), ids(moderationQueueService.claim(bob, 2)));
+    }
+
+    @Test
+    void onlyTheClaimantMayModerateAClaimedReview() {
+        createPendingReviews(1);
+        ModerationClaimDto claim = moderationQueueService.claim(alice, 1);
+        Integer id = claim.getReviews().get(0).getId();
+
+        assertThrows(ReviewClaimedException.class, () -> bulkModerationService.moderate(id, ReviewStatus.PUBLIE, bob));
+        assertEquals(ReviewStatus.PUBLIE, bulkModerationService.moderate(id, ReviewStatus.PUBLIE, alice).getStatus());
+    }
+
+    @Test
+    void pendingSearchHidesReviewsClaimedByOthers() {
+        Set<Integer> pending = createPendingReviews(2);
+        Set<Integer> claimed = ids(moderationQueueService.claim(alice, 1));
+
+        ReviewFilterDto filter = new ReviewFilterDto();
+        filter.setStatus(ReviewStatus.TRAITE);
+        filter.setModeratorId(bob);
+        Set<Integer> seenByBob = reviewService.findReviews(filter).stream().map(ReviewResponseDto::getId).collect(Collectors.toSet());
+        filter.setModeratorId(alice);
+        Set<Integer> seenByAlice = reviewService.findReviews(filter).stream().map(ReviewResponseDto::getId).collect(Collectors.toSet());
+
+        assertTrue(Collections.disjoint(claimed, seenByBob));
+        assertEquals(pending, seenByAlice);
+    }
+
+    @Test
+    void emptyQueueGivesNoLease() {
+        ModerationClaimDto claim = moderationQueueService.claim(alice, 5);
+        assertTrue(claim.getReviews().isEmpty());
+        assertNull(claim.getLeaseExpiresAt());
+    }
+
+    private ModerationClaimDto claimAfter(CountDownLatch start, Integer moderator) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return moderationQueueService.claim(moderator, 3);
+    }
+
+    private Set<Integer> createPendingReviews(int count) {
+        Account author = accountRepository.findByEmail("user@avisdevol.com").orElseThrow();
+        Flight flight = flightRepository.findAll().get(0);
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            Review review = new Review();
+            review.setContent("À modérer " + i);
+            review.setNotation(3);
+            review.setStatus(ReviewStatus.TRAITE);
+            review.setAccount(author);
+            review.setFlight(flight);
+            ids.add(reviewRepository.save(review).getId());
+        }
+        created.addAll(ids);
+        return ids;
+    }
+
+    private static Set<Integer> ids(ModerationClaimDto claim) {
+        return claim.getReviews().stream().map(ReviewResponseDto::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.avisdevolss.service;
+
+import org.example.avisdevolss.controller.RatingController;
+import org.example.avisdevolss.dto.StatusRatingDto;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.entity.ReviewStatus;
+import org.example.avisdevolss.repository.ReviewRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Rating counters follow each review change, survive a concurrent rebuild, and are served as histogram and average
+ */
+class RatingAggregateServiceTest {
+
+    private final ReviewRepository reviewRepository = mock(ReviewRepository.class);
+    private final RatingAggregateService service = new RatingAggregateService(reviewRepository);
+
+    @Test
+    void countsFollowEachReviewChange() {
+        Review review = review(1, "Air", ReviewStatus.TRAITE, 4);
+        service.add(review);
+        service.add(review(1, "Air", ReviewStatus.TRAITE, 2));
+
+        review.setStatus(ReviewStatus.PUBLIE);
+        review.setNotation(5);
+        service.change(review, ReviewStatus.TRAITE, 4);
+
+        assertEquals(1, stats(1, ReviewStatus.TRAITE).getCount());
+        assertEquals(List.of(0L, 1L, 0L, 0L, 0L), stats(1, ReviewStatus.TRAITE).getHistogram());
+        assertEquals(List.of(0L, 0L, 0L, 0L, 1L), stats(1, ReviewStatus.PUBLIE).getHistogram());
+
+        service.changeCompany(1, "Air", "Air Nouvelle");
+        assertEquals(0, service.getCompanyStats("Air").getByStatus().get(ReviewStatus.PUBLIE).getCount());
+        assertEquals(1, service.getCompanyStats("Air Nouvelle").getByStatus().get(ReviewStatus.PUBLIE).getCount());
+
+        service.remove(review);
+        assertEquals(0, stats(1, ReviewStatus.PUBLIE).getCount());
+    }
+
+    @Test
+    void rebuildKeepsTheReviewsCountedWhileItRuns() {
+        service.add(review(1, "Air", ReviewStatus.PUBLIE, 3));
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {1, "Air", ReviewStatus.PUBLIE, 3, 2L});
+        when(reviewRepository.countByFlightStatusAndNotation()).thenAnswer(invocation -> {
+            // Avis créé pendant la lecture, après l'instantané de la base
+            service.add(review(1, "Air", ReviewStatus.PUBLIE, 5));
+            return rows;
+        });
+
+        service.rebuild();
+
+        assertEquals(List.of(0L, 0L, 2L, 0L, 1L), stats(1, ReviewStatus.PUBLIE).getHistogram());
+        assertEquals(3, service.getCompanyStats("Air").getByStatus().get(ReviewStatus.PUBLIE).getCount());
+    }
+
+    @Test
+    void rebuildDropsCountsNoLongerInTheTable() {
+        service.add(review(1, "Air", ReviewStatus.PUBLIE, 3));
+        when(reviewRepository.countByFlightStatusAndNotation()).thenReturn(new ArrayList<>());
+
+        service.rebuild();
+
+        assertEquals(0, stats(1, ReviewStatus.PUBLIE).getCount());
+    }
+
+    @Test
+    void endpointsServeTheHistogramAndAverage() throws Exception {
+        service.add(review(1, "Air", ReviewStatus.PUBLIE, 5));
+        service.add(review(1, "Air", ReviewStatus.PUBLIE, 4));
+        service.add(review(2, "Air", ReviewStatus.PUBLIE, 1));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new RatingController(service)).build();
+
+        mockMvc.perform(get("/api/ratings/flights/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.flightId").value(1))
+                .andExpect(jsonPath("$.byStatus.PUBLIE.count").value(2))
+                .andExpect(jsonPath("$.byStatus.PUBLIE.sum").value(9))
+                .andExpect(jsonPath("$.byStatus.PUBLIE.average").value(4.5))
+                .andExpect(jsonPath("$.byStatus.PUBLIE.histogram[3]").value(1))
+                .andExpect(jsonPath("$.byStatus.PUBLIE.histogram[4]").value(1));
+        mockMvc.perform(get("/api/ratings/companies/Air"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.company").value("Air"))
+                .andExpect(jsonPath("$.byStatus.PUBLIE.count").value(3))
+                .andExpect(jsonPath("$.byStatus.PUBLIE.average").value(10.0 / 3))
+                .andExpect(jsonPath("$.byStatus.TRAITE.average").value(0.0));
+    }
+
+    private StatusRatingDto stats(Integer flightId, ReviewStatus status) {
+        return service.getFlightStats(flightId).getByStatus().get(status);
+    }
+
+    private static Review review(Integer flightId, String company, ReviewStatus status, int notation) {
+        Flight flight = new Flight();
+        flight.setId(flightId);
+        flight.setCompany(company);
+        Review review = new Review();
+        review.setFlight(flight);
+        review.setStatus(status);
+        review.setNotation(notation);
+        return review;
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.avisdevolss.service;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.config.SqlStatementCounter;
+import org.example.avisdevolss.dto.ResponseCreateDto;
+import org.example.avisdevolss.dto.ResponseDto;
+import org.example.avisdevolss.dto.ReviewCreateDto;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.example.avisdevolss.config.SqlStatementAssertions.assertStatementsAtMost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Responses of several reviews are loaded with one statement and grouped by review, in creation order
+ */
+@SpringBootTest
+class ResponseServiceTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private ResponseService responseService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer author;
+    private Flight flight;
+
+    @BeforeEach
+    void setUp() {
+        author = accountRepository.findByEmail("user@avisdevol.com").orElseThrow().getId();
+        flight = new Flight();
+        flight.setFlightNumber("RESP1");
+        flight.setCompany("Responses Air");
+        flight.setDate(new Date());
+        flight = flightService.createFlight(flight);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM response WHERE review_id IN (SELECT id FROM review WHERE flight_id = ?)", flight.getId());
+        jdbcTemplate.update("DELETE FROM review WHERE flight_id = ?", flight.getId());
+        flightService.deleteFlight(flight.getId());
+        statisticsService.reconcile();
+    }
+
+    @Test
+    void loadsTheResponsesOfSeveralReviewsWithOneStatement() {
+        Integer first = createReview();
+        Integer second = createReview();
+        Integer unanswered = createReview();
+        Integer a = createResponse(first, "Première");
+        Integer b = createResponse(second, "Seule");
+        Integer c = createResponse(first, "Deuxième");
+
+        Map<Integer, List<ResponseDto>> responses = assertStatementsAtMost(sqlStatementCounter, 1,
+                () -> responseService.getResponsesByReviewIds(List.of(first, second, unanswered)));
+
+        assertEquals(List.of(a, c), ids(responses.get(first)));
+        assertEquals(List.of(b), ids(responses.get(second)));
+        assertFalse(responses.containsKey(unanswered));
+        assertEquals("Deuxième", responses.get(first).get(1).getContent());
+        assertEquals(author, responses.get(first).get(0).getUserId());
+    }
+
+    @Test
+    void noReviewsRunsNoStatement() {
+        Map<Integer, List<ResponseDto>> responses = assertStatementsAtMost(sqlStatementCounter, 0,
+                () -> responseService.getResponsesByReviewIds(List.of()));
+
+        assertTrue(responses.isEmpty());
+    }
+
+    private Integer createReview() {
+        ReviewCreateDto review = new ReviewCreateDto();
+        review.setContent("Avec réponses");
+        review.setNotation(4);
+        review.setFlightId(flight.getId());
+        return reviewService.createReview(review, author).getId();
+    }
+
+    private Integer createResponse(Integer reviewId, String content) {
+        ResponseCreateDto response = new ResponseCreateDto();
+        response.setReviewId(reviewId);
+        response.setContent(content);
+        return responseService.createResponse(response, author).getId();
+    }
+
+    private static List<Integer> ids(List<ResponseDto> responses) {
+        return responses.stream().map(ResponseDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.avisdevolss.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.dto.ReviewCreateDto;
+import org.example.avisdevolss.dto.ReviewFilterDto;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Review export: CSV quoting, one JSON object per NDJSON line, and rows flushed while the cursor is read
+ */
+@SpringBootTest
+class ReviewExportServiceTest {
+
+    private static final String HEADER =
+            "id,content,notation,status,flightNumber,company,accountId,accountFirstName,accountLastName";
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private ReviewExportService reviewExportService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Account author;
+    private Flight flight;
+
+    @BeforeEach
+    void setUp() {
+        author = accountRepository.findByEmail("user@avisdevol.com").orElseThrow();
+        flight = new Flight();
+        flight.setFlightNumber("EXP1");
+        flight.setCompany("Export " + UUID.randomUUID().toString().substring(0, 8));
+        flight.setDate(new Date());
+        flight = flightService.createFlight(flight);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM review WHERE flight_id = ?", flight.getId());
+        flightService.deleteFlight(flight.getId());
+        statisticsService.reconcile();
+    }
+
+    @Test
+    void quotesCsvFieldsWithSeparatorsQuotesAndNewlines() {
+        Integer quoted = createReview("Bien, mais \"serré\"\nretard de 2h");
+        Integer plain = createReview("Parfait");
+
+        List<String> lines = export("csv").lines().collect(Collectors.toList());
+
+        assertEquals(HEADER, lines.get(0));
+        // Le retour à la ligne reste dans le champ entre guillemets
+        assertEquals(quoted + ",\"Bien, mais \"\"serré\"\"", lines.get(1));
+        assertEquals("retard de 2h\",4,TRAITE,EXP1," + flight.getCompany() + "," + author.getId() + ","
+                + author.getFirstName() + "," + author.getLastName(), lines.get(2));
+        assertTrue(lines.get(3).startsWith(plain + ",Parfait,4,TRAITE,"), lines.get(3));
+        assertEquals(4, lines.size());
+    }
+
+    @Test
+    void writesOneJsonObjectPerNdjsonLine() throws Exception {
+        Integer first = createReview("Ligne\nsur deux, avec \"guillemets\"");
+        Integer second = createReview("Parfait");
+
+        String[] lines = export("ndjson").split("\n");
+
+        assertEquals(2, lines.length);
+        JsonNode row = objectMapper.readTree(lines[0]);
+        assertEquals(first, row.get("id").asInt());
+        assertEquals("Ligne\nsur deux, avec \"guillemets\"", row.get("content").asText());
+        assertEquals(flight.getCompany(), row.get("company").asText());
+        assertEquals(author.getId(), row.get("accountId").asInt());
+        assertEquals(second, objectMapper.readTree(lines[1]).get("id").asInt());
+    }
+
+    @Test
+    void flushesRowsWhileTheCursorIsRead() {
+        jdbcTemplate.update("INSERT INTO review (id, content, notation, status, account_id, flight_id) "
+                + "SELECT nextval('hibernate_sequence'), 'Avis ' || g, 3, 'PUBLIE', ?, ? FROM generate_series(1, 1200) g",
+                author.getId(), flight.getId());
+        FlushRecordingStream output = new FlushRecordingStream();
+
+        reviewExportService.exportReviews(filter(), "csv", output);
+
+        String csv = output.toString(StandardCharsets.UTF_8);
+        assertEquals(1201, csv.lines().count());
+        // Une vidange toutes les 500 lignes, puis la dernière : la réponse part avant la fin de la lecture
+        assertEquals(3, output.flushedSizes.size());
+        assertTrue(output.flushedSizes.get(0) < output.flushedSizes.get(1));
+        assertTrue(output.flushedSizes.get(1) < csv.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private Integer createReview(String content) {
+        ReviewCreateDto review = new ReviewCreateDto();
+        review.setContent(content);
+        review.setNotation(4);
+        review.setFlightId(flight.getId());
+        return reviewService.createReview(review, author.getId()).getId();
+    }
+
+    private String export(String format) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        reviewExportService.exportReviews(filter(), format, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private ReviewFilterDto filter() {
+        ReviewFilterDto filter = new ReviewFilterDto();
+        filter.setCompany(flight.getCompany());
+        return filter;
+    }
+
+    /**
+     * Records how many bytes had been written at each flush
+     */
+    private static final class FlushRecordingStream extends ByteArrayOutputStream {
+
+        private final List<Integer> flushedSizes = new ArrayList<>();
+
+        @Override
+        public void flush() {
+            flushedSizes.add(size());
+        }
+    }
+}
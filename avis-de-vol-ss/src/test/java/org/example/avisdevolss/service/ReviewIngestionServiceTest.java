@@ -0,0 +1,181 @@
+package org.example.avisdevolss.service;
+
+import org.example.avisdevolss.config.ReadYourWrites;
+import org.example.avisdevolss.dto.ReviewCreateDto;
+import org.example.avisdevolss.dto.ReviewSubmissionDto;
+import org.example.avisdevolss.dto.SubmissionStatus;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Review;
+import org.example.avisdevolss.exception.GlobalExceptionHandler;
+import org.example.avisdevolss.exception.IngestionQueueFullException;
+import org.example.avisdevolss.repository.AccountRepository;
+import org.example.avisdevolss.repository.FlightRepository;
+import org.example.avisdevolss.repository.ReviewRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Write-behind ingestion: a full queue is refused with 503, queued submissions are written in batches,
+ * and shutdown writes every accepted submission
+ */
+class ReviewIngestionServiceTest {
+
+    private static final int FLIGHT_ID = 7;
+    private static final int ACCOUNT_ID = 3;
+
+    private final FlightRepository flightRepository = mock(FlightRepository.class);
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final ReviewRepository reviewRepository = mock(ReviewRepository.class);
+    // Taille de chaque lot enregistré
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private ReviewIngestionService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service.isRunning()) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void refusesSubmissionsWith503WhenTheQueueIsFull() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(2, 10, 30_000, () -> {
+            writing.countDown();
+            await(release);
+        });
+
+        service.submit(review(), ACCOUNT_ID);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        service.submit(review(), ACCOUNT_ID);
+        service.submit(review(), ACCOUNT_ID);
+        IngestionQueueFullException refused =
+                assertThrows(IngestionQueueFullException.class, () -> service.submit(review(), ACCOUNT_ID));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                new GlobalExceptionHandler().handleIngestionQueueFull(refused).getStatusCode());
+
+        release.countDown();
+        service.stop();
+        assertEquals(List.of(1, 2), batches);
+    }
+
+    @Test
+    void writesQueuedSubmissionsInBatches() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(100, 3, 30_000, () -> {
+            writing.countDown();
+            await(release);
+        });
+
+        List<ReviewSubmissionDto> submissions = new ArrayList<>();
+        submissions.add(service.submit(review(), ACCOUNT_ID));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 6; i++) {
+            submissions.add(service.submit(review(), ACCOUNT_ID));
+        }
+        release.countDown();
+        service.stop();
+
+        assertEquals(List.of(1, 3, 3), batches);
+        for (ReviewSubmissionDto submission : submissions) {
+            ReviewSubmissionDto status = service.getSubmission(submission.getTrackingId()).orElseThrow();
+            assertEquals(SubmissionStatus.CREATED, status.getStatus());
+        }
+    }
+
+    @Test
+    void stopWritesEveryAcceptedSubmissionBeyondTheTimeoutWhileBatchesComplete() {
+        // Chaque lot dure plus que la moitié du délai : la vidange complète le dépasse largement
+        start(100, 1, 200, () -> sleep(120));
+        List<ReviewSubmissionDto> submissions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            submissions.add(service.submit(review(), ACCOUNT_ID));
+        }
+
+        service.stop();
+
+        assertEquals(0, service.getQueueSize());
+        assertEquals(5, batches.size());
+        for (ReviewSubmissionDto submission : submissions) {
+            assertEquals(SubmissionStatus.CREATED,
+                    service.getSubmission(submission.getTrackingId()).orElseThrow().getStatus());
+        }
+        assertThrows(IngestionQueueFullException.class, () -> service.submit(review(), ACCOUNT_ID));
+    }
+
+    /**
+     * @param beforeBatch run at the start of each batch, on the writer thread
+     */
+    @SuppressWarnings("unchecked")
+    private void start(int queueCapacity, int batchSize, long shutdownTimeoutMs, Runnable beforeBatch) {
+        Flight flight = new Flight();
+        flight.setId(FLIGHT_ID);
+        Account account = new Account();
+        account.setId(ACCOUNT_ID);
+        when(flightRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            beforeBatch.run();
+            return List.of(flight);
+        });
+        when(accountRepository.findAllById(anyIterable())).thenReturn(List.of(account));
+        when(reviewRepository.saveAll(any())).thenAnswer(invocation -> {
+            Collection<Review> reviews = invocation.getArgument(0);
+            reviews.forEach(review -> review.setId(nextId.getAndIncrement()));
+            batches.add(reviews.size());
+            return reviews.stream().collect(Collectors.toList());
+        });
+
+        service = new ReviewIngestionService(reviewRepository, flightRepository, accountRepository,
+                mock(RatingAggregateService.class), mock(StatisticsService.class), mock(ResourceVersions.class),
+                mock(ReadYourWrites.class), new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                queueCapacity, batchSize, 10, shutdownTimeoutMs);
+        service.start();
+    }
+
+    private static ReviewCreateDto review() {
+        ReviewCreateDto review = new ReviewCreateDto();
+        review.setFlightId(FLIGHT_ID);
+        review.setNotation(4);
+        review.setContent("En file");
+        return review;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.avisdevolss.service;
+
+import org.example.avisdevolss.EmbeddedPostgresDatabase;
+import org.example.avisdevolss.config.SqlStatementCounter;
+import org.example.avisdevolss.dto.ReviewCreateDto;
+import org.example.avisdevolss.entity.Account;
+import org.example.avisdevolss.entity.Flight;
+import org.example.avisdevolss.entity.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.example.avisdevolss.config.SqlStatementAssertions.assertStatementsAtMost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Flight and Account are served from the second-level cache, and reviews from the reviews cache;
+ * they stay correct after an update, made by this instance or by another one
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresDatabase.register(registry);
+    }
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void flightUpdateIsVisibleFromTheCache() {
+        Flight flight = new Flight();
+        flight.setFlightNumber("CACHE1");
+        flight.setCompany("Cache Air");
+        flight.setDate(new Date());
+        Integer id = flightService.createFlight(flight).getId();
+
+        flightService.findById(id);
+        assertStatementsAtMost(sqlStatementCounter, 0, () -> flightService.findById(id).orElseThrow());
+
+        Flight update = new Flight();
+        update.setFlightNumber("CACHE1");
+        update.setCompany("Cache Airways");
+        update.setDate(flight.getDate());
+        flightService.updateFlight(id, update);
+
+        Flight cached = assertStatementsAtMost(sqlStatementCounter, 0, () -> flightService.findById(id).orElseThrow());
+        assertEquals("Cache Airways", cached.getCompany());
+    }
+
+    @Test
+    void companiesQueryIsCachedUntilAFlightIsWritten() {
+        flightService.findAllCompanies();
+        assertStatementsAtMost(sqlStatementCounter, 0, () -> flightService.findAllCompanies());
+
+        Flight flight = new Flight();
+        flight.setFlightNumber("CACHE2");
+        flight.setCompany("Query Cache Lines");
+        flight.setDate(new Date());
+        flightService.createFlight(flight);
+
+        List<String> companies = flightService.findAllCompanies();
+        assertTrue(companies.contains("Query Cache Lines"));
+    }
+
+    @Test
+    void accountRoleUpdateIsVisibleFromTheCache() {
+        Account account = accountService.findByEmail("user@avisdevol.com").orElseThrow();
+        accountService.findById(account.getId());
+
+        accountService.updateAccountRole(account.getId(), Role.ADMIN);
+        Account cached = assertStatementsAtMost(sqlStatementCounter, 0, () -> accountService.findById(account.getId()).orElseThrow());
+        assertEquals(Role.ADMIN, cached.getRole());
+
+        accountService.updateAccountRole(account.getId(), Role.USER);
+        assertEquals(Role.USER, accountService.findById(account.getId()).orElseThrow().getRole());
+    }
+
+    @Test
+    void writesOfAnotherInstanceEvictTheCachesOnceTheirVersionIsSeen() {
+        Flight flight = new Flight();
+        flight.setFlightNumber("CACHE3");
+        flight.setCompany("Remote Air");
+        flight.setDate(new Date());
+        Integer flightId = flightService.createFlight(flight).getId();
+        Account account = accountService.findByEmail("admin@avisdevol.com").orElseThrow();
+        resourceVersions.refresh();
+        flightService.findById(flightId);
+        accountService.findById(account.getId());
+        flightService.findAllCompanies();
+
+        // Écritures d'une autre instance : ni les caches ni les horodatages de Hibernate ne les voient
+        jdbcTemplate.update("UPDATE flight SET company = 'Remote Airways' WHERE id = ?", flightId);
+        jdbcTemplate.update("UPDATE account SET first_name = 'Remote' WHERE id = ?", account.getId());
+        jdbcTemplate.update("UPDATE resource_version SET version = version + 1 WHERE family IN ('FLIGHTS', 'ACCOUNTS')");
+        assertEquals("Remote Air", flightService.findById(flightId).orElseThrow().getCompany());
+
+        resourceVersions.refresh();
+
+        assertEquals("Remote Airways", flightService.findById(flightId).orElseThrow().getCompany());
+        assertEquals("Remote", accountService.findById(account.getId()).orElseThrow().getFirstName());
+        assertTrue(flightService.findAllCompanies().contains("Remote Airways"));
+        jdbcTemplate.update("UPDATE account SET first_name = ? WHERE id = ?", account.getFirstName(), account.getId());
+    }
+
+    @Test
+    void cachedReviewsAreClearedOnceAnotherInstanceWriteIsSeen() {
+        Account author = accountService.findByEmail("user@avisdevol.com").orElseThrow();
+        ReviewCreateDto create = new ReviewCreateDto();
+        create.setContent("Avis en cache");
+        create.setNotation(3);
+        create.setFlightId(flightService.findAllFlights().get(0).getId());
+        Integer reviewId = reviewService.createReview(create, author.getId()).getId();
+        resourceVersions.refresh();
+        reviewService.getReviewById(reviewId);
+
+        // Modifié par une autre instance, qui n'a vidé que son propre cache
+        jdbcTemplate.update("UPDATE review SET content = 'Avis modifié ailleurs' WHERE id = ?", reviewId);
+        jdbcTemplate.update("UPDATE resource_version SET version = version + 1 WHERE family = 'REVIEWS'");
+        assertEquals("Avis en cache", reviewService.getReviewById(reviewId).getContent());
+
+        resourceVersions.refresh();
+
+        assertEquals("Avis modifié ailleurs", reviewService.getReviewById(reviewId).getContent());
+        reviewService.deleteReview(reviewId);
+    }
+}